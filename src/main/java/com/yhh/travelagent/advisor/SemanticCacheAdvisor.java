@@ -0,0 +1,281 @@
+package com.yhh.travelagent.advisor;
+
+import cn.hutool.crypto.SecureUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.advisor.api.*;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.MessageAggregator;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 语义缓存 Advisor
+ * 按用户问题的向量相似度复用历史回答，相近的问题不再重复调用大模型
+ * 只缓存没有对话历史、没有工具调用的请求，避免把依赖上下文的回答串给其他会话
+ */
+@Slf4j
+public class SemanticCacheAdvisor implements CallAroundAdvisor, StreamAroundAdvisor {
+
+    /**
+     * 顾问参数：为 true 时本次请求不读写缓存（例如知识库尚未就绪时的降级回答）
+     */
+    public static final String SKIP_CACHE_KEY = "semantic_cache_skip";
+
+    private static final double DEFAULT_SIMILARITY_THRESHOLD = 0.92;
+    private static final Duration DEFAULT_TTL = Duration.ofHours(6);
+    private static final int DEFAULT_MAX_ENTRIES = 1000;
+    // 每处理多少次请求输出一次命中率日志
+    private static final int STATS_LOG_INTERVAL = 100;
+
+    private final EmbeddingModel embeddingModel;
+    private final double similarityThreshold;
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    // 最新的条目在队首，超出容量时从队尾淘汰
+    private final Deque<CacheEntry> entries = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+
+    /**
+     * 使用默认阈值、过期时间和容量创建语义缓存
+     */
+    public SemanticCacheAdvisor(EmbeddingModel embeddingModel) {
+        this(embeddingModel, DEFAULT_SIMILARITY_THRESHOLD, DEFAULT_TTL, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * 创建语义缓存
+     *
+     * @param embeddingModel      向量模型
+     * @param similarityThreshold 命中所需的最小余弦相似度
+     * @param ttl                 缓存条目的存活时间
+     * @param maxEntries          最大缓存条目数
+     */
+    public SemanticCacheAdvisor(EmbeddingModel embeddingModel, double similarityThreshold, Duration ttl, int maxEntries) {
+        this.embeddingModel = embeddingModel;
+        this.similarityThreshold = similarityThreshold;
+        this.ttlMillis = ttl.toMillis();
+        this.maxEntries = maxEntries;
+        log.info("初始化语义缓存Advisor，相似度阈值: {}，过期时间: {}，容量: {}", similarityThreshold, ttl, maxEntries);
+    }
+
+    @Override
+    public String getName() {
+        return this.getClass().getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        // 在对话记忆和违禁词检测之后、知识库检索之前执行，命中时连检索一起跳过
+        return -50;
+    }
+
+    @Override
+    public AdvisedResponse aroundCall(AdvisedRequest advisedRequest, CallAroundAdvisorChain chain) {
+        CacheKey key = resolveKey(advisedRequest);
+        if (key == null) {
+            return chain.nextAroundCall(advisedRequest);
+        }
+        String cached = lookup(key);
+        if (cached != null) {
+            return new AdvisedResponse(toChatResponse(cached), advisedRequest.adviseContext());
+        }
+        AdvisedResponse advisedResponse = chain.nextAroundCall(advisedRequest);
+        store(key, advisedResponse);
+        return advisedResponse;
+    }
+
+    @Override
+    public Flux<AdvisedResponse> aroundStream(AdvisedRequest advisedRequest, StreamAroundAdvisorChain chain) {
+        CacheKey key = resolveKey(advisedRequest);
+        if (key == null) {
+            return chain.nextAroundStream(advisedRequest);
+        }
+        String cached = lookup(key);
+        if (cached != null) {
+            return Flux.just(new AdvisedResponse(toChatResponse(cached), advisedRequest.adviseContext()));
+        }
+        Flux<AdvisedResponse> advisedResponses = chain.nextAroundStream(advisedRequest);
+        return new MessageAggregator().aggregateAdvisedResponse(advisedResponses, response -> store(key, response));
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), bypasses.sum(), size.get());
+    }
+
+    /**
+     * 计算请求的缓存键，不可缓存的请求返回 null
+     */
+    private CacheKey resolveKey(AdvisedRequest request) {
+        // 有对话历史、工具或多模态输入时，回答依赖上下文，不参与缓存
+        boolean cacheable = !Boolean.TRUE.equals(request.adviseContext().get(SKIP_CACHE_KEY))
+                && StringUtils.hasText(request.userText())
+                && request.messages().isEmpty()
+                && request.functionNames().isEmpty()
+                && request.functionCallbacks().isEmpty()
+                && request.media().isEmpty();
+        if (!cacheable) {
+            recordBypass();
+            return null;
+        }
+        try {
+            float[] embedding = normalize(embeddingModel.embed(request.userText()));
+            return new CacheKey(resolveScope(request), embedding);
+        } catch (Exception e) {
+            log.warn("语义缓存计算问题向量失败，跳过缓存: {}", e.getMessage());
+            recordBypass();
+            return null;
+        }
+    }
+
+    /**
+     * 系统提示词、输出格式、顾问链相同的请求才共享缓存
+     * 例如知识库问答和普通对话、旅游报告各自独立
+     */
+    private String resolveScope(AdvisedRequest request) {
+        String advisorNames = request.advisors().stream()
+                .map(Advisor::getName)
+                .sorted()
+                .collect(Collectors.joining(","));
+        String scope = Objects.toString(request.systemText(), "") + "\n"
+                + request.systemParams() + "\n"
+                + request.userParams() + "\n"
+                + Objects.toString(request.adviseContext().get("formatParam"), "") + "\n"
+                + advisorNames;
+        return SecureUtil.sha256(scope);
+    }
+
+    private String lookup(CacheKey key) {
+        long now = System.currentTimeMillis();
+        CacheEntry best = null;
+        double bestScore = similarityThreshold;
+        for (CacheEntry entry : entries) {
+            if (now - entry.createdAt() > ttlMillis) {
+                if (entries.remove(entry)) {
+                    size.decrementAndGet();
+                }
+                continue;
+            }
+            if (!entry.scope().equals(key.scope())) {
+                continue;
+            }
+            double score = dot(key.embedding(), entry.embedding());
+            if (score >= bestScore) {
+                bestScore = score;
+                best = entry;
+            }
+        }
+        if (best != null) {
+            hits.increment();
+            log.info("语义缓存命中，相似度: {}", String.format("%.4f", bestScore));
+        } else {
+            misses.increment();
+        }
+        logStatsIfNeeded();
+        return best == null ? null : best.content();
+    }
+
+    private void store(CacheKey key, AdvisedResponse advisedResponse) {
+        ChatResponse response = advisedResponse.response();
+        if (response == null || response.getResult() == null || response.hasToolCalls()) {
+            return;
+        }
+        String content = response.getResult().getOutput().getText();
+        if (!StringUtils.hasText(content)) {
+            return;
+        }
+        entries.addFirst(new CacheEntry(key.scope(), key.embedding(), content, System.currentTimeMillis()));
+        // 超出容量时淘汰最旧的条目
+        if (size.incrementAndGet() > maxEntries && entries.pollLast() != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    private ChatResponse toChatResponse(String content) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(content))));
+    }
+
+    private void recordBypass() {
+        bypasses.increment();
+        logStatsIfNeeded();
+    }
+
+    private void logStatsIfNeeded() {
+        CacheStats stats = getStats();
+        if (stats.total() % STATS_LOG_INTERVAL == 0) {
+            log.info("语义缓存统计: {}", stats);
+        }
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        if (norm == 0) {
+            return vector;
+        }
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return -1;
+        }
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private record CacheKey(String scope, float[] embedding) {
+    }
+
+    private record CacheEntry(String scope, float[] embedding, String content, long createdAt) {
+    }
+
+    /**
+     * 缓存统计
+     *
+     * @param hits     命中次数
+     * @param misses   未命中次数
+     * @param bypasses 不可缓存而直接放行的次数
+     * @param size     当前缓存条目数
+     */
+    public record CacheStats(long hits, long misses, long bypasses, int size) {
+
+        public long total() {
+            return hits + misses + bypasses;
+        }
+
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.yhh.travelagent.agent;
 
 import cn.hutool.core.util.StrUtil;
 import com.yhh.travelagent.agent.model.AgentState;
+import com.yhh.travelagent.tools.SearchQuota;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -67,6 +68,8 @@ public abstract class BaseAgent {
         messageList.add(new UserMessage(userPrompt));
         // 保存结果列表
         List<String> results = new ArrayList<>();
+        // 本次运行的工具调用单独计算搜索配额
+        SearchQuota.RunScope searchRun = SearchQuota.beginRun();
         try {
             // 步骤循环
             for (int i = 0; i < maxSteps && state != AgentState.FINISHED; i++) {
@@ -94,6 +97,7 @@ public abstract class BaseAgent {
             log.error("执行错误", e);
             return "执行错误: " + e.getMessage();
         } finally {
+            searchRun.close();
             cleanup();
         }
     }
@@ -119,6 +123,8 @@ public abstract class BaseAgent {
         SseEmitter emitter = new SseEmitter(300000L); // 5分钟超时
 
         CompletableFuture.runAsync(() -> {
+            // 本次运行的工具调用单独计算搜索配额
+            SearchQuota.RunScope searchRun = SearchQuota.beginRun();
             try {
                 // 校验
                 if (state != AgentState.IDLE || StrUtil.isBlank(userPrompt)) {
@@ -164,6 +170,7 @@ public abstract class BaseAgent {
                     emitter.completeWithError(ex);
                 }
             } finally {
+                searchRun.close();
                 cleanup();
             }
         });
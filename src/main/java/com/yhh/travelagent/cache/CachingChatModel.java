@@ -0,0 +1,118 @@
+package com.yhh.travelagent.cache;
+
+import cn.hutool.crypto.SecureUtil;
+import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * @Date 2025-07-20 10:30
+ * @ClassName: CachingChatModel
+ * @Description: 带精确匹配缓存的 ChatModel 包装，适用于查询重写、关键词提取等输入确定、输出确定的辅助调用
+ */
+@Slf4j
+public class CachingChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final ChatResponseCache cache;
+
+    public CachingChatModel(ChatModel delegate, ChatResponseCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        if (!isCacheable(prompt)) {
+            return delegate.call(prompt);
+        }
+        String key = buildKey(prompt);
+        String cached = cache.get(key);
+        if (cached != null) {
+            log.debug("大模型回答缓存命中: {}", key);
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(cached))));
+        }
+        ChatResponse response = delegate.call(prompt);
+        if (response != null && response.getResult() != null && !response.hasToolCalls()
+                && StringUtils.hasText(response.getResult().getOutput().getText())) {
+            cache.put(key, response.getResult().getOutput().getText());
+        }
+        return response;
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        // 流式调用不缓存
+        return delegate.stream(prompt);
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    /**
+     * 带工具的请求结果依赖外部状态，不缓存
+     * DashScopeChatOptions 只实现了已废弃的 FunctionCallingOptions，需要按具体类型单独判断
+     */
+    private boolean isCacheable(Prompt prompt) {
+        if (prompt.getOptions() instanceof ToolCallingChatOptions options
+                && (!CollectionUtils.isEmpty(options.getToolCallbacks()) || !CollectionUtils.isEmpty(options.getToolNames()))) {
+            return false;
+        }
+        if (prompt.getOptions() instanceof DashScopeChatOptions options
+                && (!CollectionUtils.isEmpty(options.getFunctionCallbacks()) || !CollectionUtils.isEmpty(options.getFunctions())
+                || !CollectionUtils.isEmpty(options.getTools()))) {
+            return false;
+        }
+        for (Message message : prompt.getInstructions()) {
+            if (message instanceof ToolResponseMessage
+                    || (message instanceof AssistantMessage assistantMessage && assistantMessage.hasToolCalls())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 由模型、选项和完整提示词计算缓存键
+     */
+    private String buildKey(Prompt prompt) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(delegate.getClass().getName()).append('\n');
+        appendOptions(sb, delegate.getDefaultOptions());
+        appendOptions(sb, prompt.getOptions());
+        for (Message message : prompt.getInstructions()) {
+            sb.append(message.getMessageType()).append(':').append(message.getText()).append('\n');
+        }
+        return SecureUtil.sha256(sb.toString());
+    }
+
+    private void appendOptions(StringBuilder sb, ChatOptions options) {
+        if (options == null) {
+            sb.append("-\n");
+            return;
+        }
+        sb.append(options.getModel()).append('|')
+                .append(options.getTemperature()).append('|')
+                .append(options.getTopP()).append('|')
+                .append(options.getTopK()).append('|')
+                .append(options.getMaxTokens()).append('|')
+                .append(options.getFrequencyPenalty()).append('|')
+                .append(options.getPresencePenalty()).append('|')
+                .append(options.getStopSequences()).append('\n');
+    }
+}
@@ -0,0 +1,101 @@
+package com.yhh.travelagent.cache;
+
+import cn.hutool.crypto.SecureUtil;
+import com.yhh.travelagent.rag.EmbeddingBatcher;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @Date 2025-07-20 14:20
+ * @ClassName: CachingEmbeddingModel
+ * @Description: 带内容哈希缓存的 EmbeddingModel 包装，只缓存文档向量，查询向量直接透传
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    // 模型名称与维度参与缓存键，切换模型后不会复用旧模型的向量
+    private final String modelName;
+    private final Integer modelDimensions;
+    private final EmbeddingCache cache;
+    private final EmbeddingBatcher batcher;
+
+    /**
+     * @param modelName       被包装模型实际使用的模型名称
+     * @param modelDimensions 配置的向量维度，为空表示模型默认维度
+     * @param batcher         批量向量化文档时使用的批处理器，为空时逐批顺序调用被包装的模型
+     */
+    public CachingEmbeddingModel(EmbeddingModel delegate, String modelName, Integer modelDimensions,
+                                 EmbeddingCache cache, EmbeddingBatcher batcher) {
+        this.delegate = delegate;
+        this.modelName = modelName;
+        this.modelDimensions = modelDimensions;
+        this.cache = cache;
+        this.batcher = batcher;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        String key = buildKey(document);
+        float[] embedding = cache.get(key);
+        if (embedding == null) {
+            embedding = delegate.embed(document);
+            cache.put(key, embedding);
+        }
+        return embedding;
+    }
+
+    /**
+     * 批量向量化文档，只请求缓存未命中的文档
+     * 配置了批处理器时忽略传入的 batchingStrategy，由批处理器按 token 数打包并发请求
+     */
+    @Override
+    public List<float[]> embed(List<Document> documents, EmbeddingOptions options, BatchingStrategy batchingStrategy) {
+        float[][] embeddings = new float[documents.size()][];
+        List<Document> missed = new ArrayList<>();
+        List<Integer> missedIndexes = new ArrayList<>();
+        for (int i = 0; i < documents.size(); i++) {
+            embeddings[i] = cache.get(buildKey(documents.get(i)));
+            if (embeddings[i] == null) {
+                missed.add(documents.get(i));
+                missedIndexes.add(i);
+            }
+        }
+        if (!missed.isEmpty()) {
+            List<float[]> missedEmbeddings = batcher != null
+                    ? batcher.embed(delegate, missed)
+                    : delegate.embed(missed, options, batchingStrategy);
+            for (int i = 0; i < missed.size(); i++) {
+                embeddings[missedIndexes.get(i)] = missedEmbeddings.get(i);
+                cache.put(buildKey(missed.get(i)), missedEmbeddings.get(i));
+            }
+        }
+        return Arrays.asList(embeddings);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    /**
+     * 由模型（实现类、模型名称、维度）和参与向量化的文档内容（正文 + 元信息）计算缓存键
+     */
+    private String buildKey(Document document) {
+        return SecureUtil.sha256(delegate.getClass().getName() + "\n" + modelName + "\n" + modelDimensions + "\n"
+                + document.getFormattedContent(MetadataMode.EMBED));
+    }
+}
@@ -0,0 +1,144 @@
+package com.yhh.travelagent.cache;
+
+import cn.hutool.core.io.FileUtil;
+import com.yhh.travelagent.constants.FileConstant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Date 2025-07-20 10:12
+ * @ClassName: ChatResponseCache
+ * @Description: 大模型回答的内容寻址缓存（内存 LRU + 可选磁盘层），键为请求内容的哈希；
+ * 磁盘层同样按最近使用淘汰，超出条目上限时删除最久未使用的文件，启动时按文件修改时间恢复顺序
+ */
+@Component
+@Slf4j
+public class ChatResponseCache {
+
+    private final String CACHE_DIR = FileConstant.FILE_SAVE_DIR + "/llm-cache";
+
+    private final Map<String, String> memoryCache;
+    // 磁盘层的键，访问顺序，淘汰时删除对应文件
+    private final Map<String, Boolean> diskIndex;
+    private final boolean diskEnabled;
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder diskEvictions = new LongAdder();
+
+    public ChatResponseCache(@Value("${llm-cache.max-entries:2000}") int maxEntries,
+                             @Value("${llm-cache.disk-enabled:true}") boolean diskEnabled,
+                             @Value("${llm-cache.disk-max-entries:10000}") int diskMaxEntries) {
+        // 访问顺序的 LinkedHashMap，超出容量时淘汰最久未使用的条目
+        this.memoryCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        this.diskIndex = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                if (size() <= diskMaxEntries) {
+                    return false;
+                }
+                FileUtil.del(getCacheFile(eldest.getKey()));
+                diskEvictions.increment();
+                return true;
+            }
+        });
+        this.diskEnabled = diskEnabled;
+        if (diskEnabled) {
+            FileUtil.mkdir(CACHE_DIR);
+            loadDiskIndex();
+        }
+        log.info("初始化大模型回答缓存，内存容量: {}，磁盘缓存: {}，磁盘容量: {}，已有: {}", maxEntries,
+                diskEnabled ? CACHE_DIR : "关闭", diskMaxEntries, diskIndex.size());
+    }
+
+    /**
+     * 读取缓存，先查内存再查磁盘
+     *
+     * @param key 请求内容哈希
+     * @return 缓存的回答文本，未命中返回 null
+     */
+    public String get(String key) {
+        String content = memoryCache.get(key);
+        if (content != null) {
+            memoryHits.increment();
+            return content;
+        }
+        if (diskEnabled) {
+            File file = getCacheFile(key);
+            if (diskIndex.get(key) != null && file.exists()) {
+                try {
+                    content = FileUtil.readUtf8String(file);
+                    memoryCache.put(key, content);
+                    // 更新修改时间，重启后仍按最近使用顺序淘汰
+                    file.setLastModified(System.currentTimeMillis());
+                    diskHits.increment();
+                    return content;
+                } catch (Exception e) {
+                    log.warn("读取磁盘缓存失败: {}", file, e);
+                }
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param key     请求内容哈希
+     * @param content 回答文本
+     */
+    public void put(String key, String content) {
+        memoryCache.put(key, content);
+        if (diskEnabled) {
+            try {
+                FileUtil.writeUtf8String(content, getCacheFile(key));
+                diskIndex.put(key, Boolean.TRUE);
+            } catch (Exception e) {
+                log.warn("写入磁盘缓存失败: {}", key, e);
+            }
+        }
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "memoryHits", memoryHits.sum(),
+                "diskHits", diskHits.sum(),
+                "misses", misses.sum(),
+                "size", (long) memoryCache.size(),
+                "diskSize", (long) diskIndex.size(),
+                "diskEvictions", diskEvictions.sum()
+        );
+    }
+
+    /**
+     * 扫描磁盘缓存目录，按修改时间从旧到新放入索引，超出上限的旧文件在放入时被删除
+     */
+    private void loadDiskIndex() {
+        FileUtil.loopFiles(CACHE_DIR, file -> file.getName().endsWith(".txt")).stream()
+                .sorted(Comparator.comparingLong(File::lastModified))
+                .forEach(file -> diskIndex.put(FileUtil.mainName(file), Boolean.TRUE));
+    }
+
+    private File getCacheFile(String key) {
+        // 按哈希前两位分目录，避免单目录文件过多
+        return new File(CACHE_DIR + "/" + key.substring(0, 2), key + ".txt");
+    }
+}
@@ -0,0 +1,115 @@
+package com.yhh.travelagent.cache;
+
+import cn.hutool.core.io.FileUtil;
+import com.yhh.travelagent.constants.FileConstant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Date 2025-07-20 14:05
+ * @ClassName: EmbeddingCache
+ * @Description: 文档向量的磁盘缓存，键为文档内容哈希，重启后无需重新调用向量模型
+ * 内存层是容量有限的 LRU，只保留最近使用的向量；全部向量已由向量库保存，避免在堆上再存一份
+ */
+@Component
+@Slf4j
+public class EmbeddingCache {
+
+    private final String CACHE_DIR = FileConstant.FILE_SAVE_DIR + "/embedding-cache";
+
+    private final Map<String, float[]> memoryCache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public EmbeddingCache(@Value("${embedding-cache.max-entries:1000}") int maxEntries) {
+        // 访问顺序的 LinkedHashMap，超出容量时淘汰最久未使用的条目
+        this.memoryCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        FileUtil.mkdir(CACHE_DIR);
+        log.info("初始化向量缓存，内存容量: {}，磁盘缓存: {}", maxEntries, CACHE_DIR);
+    }
+
+    /**
+     * 读取缓存的向量
+     *
+     * @param key 内容哈希
+     * @return 向量，未命中返回 null
+     */
+    public float[] get(String key) {
+        float[] embedding = memoryCache.get(key);
+        if (embedding == null) {
+            embedding = readFromDisk(key);
+            if (embedding != null) {
+                memoryCache.put(key, embedding);
+            }
+        }
+        if (embedding != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return embedding;
+    }
+
+    /**
+     * 写入向量缓存
+     *
+     * @param key       内容哈希
+     * @param embedding 向量
+     */
+    public void put(String key, float[] embedding) {
+        memoryCache.put(key, embedding);
+        ByteBuffer buffer = ByteBuffer.allocate(embedding.length * Float.BYTES);
+        buffer.asFloatBuffer().put(embedding);
+        try {
+            FileUtil.writeBytes(buffer.array(), getCacheFile(key));
+        } catch (Exception e) {
+            log.warn("写入向量缓存失败: {}", key, e);
+        }
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "hits", hits.sum(),
+                "misses", misses.sum(),
+                "size", (long) memoryCache.size()
+        );
+    }
+
+    private float[] readFromDisk(String key) {
+        File file = getCacheFile(key);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            byte[] bytes = FileUtil.readBytes(file);
+            float[] embedding = new float[bytes.length / Float.BYTES];
+            ByteBuffer.wrap(bytes).asFloatBuffer().get(embedding);
+            return embedding;
+        } catch (Exception e) {
+            log.warn("读取向量缓存失败: {}", file, e);
+            return null;
+        }
+    }
+
+    private File getCacheFile(String key) {
+        // 按哈希前两位分目录，避免单目录文件过多
+        return new File(CACHE_DIR + "/" + key.substring(0, 2), key + ".bin");
+    }
+}
@@ -1,23 +1,29 @@
 package com.yhh.travelagent.config;
 
-import cn.hutool.core.collection.CollUtil;
+import com.yhh.travelagent.cache.CachingEmbeddingModel;
+import com.yhh.travelagent.cache.EmbeddingCache;
+import com.yhh.travelagent.rag.BackgroundIndexingVectorStore;
+import com.yhh.travelagent.rag.EmbeddingBatcher;
+import com.yhh.travelagent.rag.StreamingDocumentIngestor;
 import com.yhh.travelagent.rag.TravelAppDocumentLoader;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.document.Document;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.ColumnMapRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
 
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static org.springframework.ai.vectorstore.pgvector.PgVectorStore.PgDistanceType.COSINE_DISTANCE;
@@ -33,13 +39,29 @@ import static org.springframework.ai.vectorstore.pgvector.PgVectorStore.PgIndexT
 @Slf4j
 public class PgVectorVectorStoreConfig {
 
+    // 每批删除的文档数量
+    private static final int DELETE_BATCH_SIZE = 500;
+
     @Resource
     private TravelAppDocumentLoader travelAppDocumentLoader;
+    @Resource
+    private EmbeddingCache embeddingCache;
+    @Resource
+    private EmbeddingBatcher embeddingBatcher;
+    @Value("${spring.ai.dashscope.embedding.options.model:text-embedding-v1}")
+    private String embeddingModelName;
+    @Value("${spring.ai.dashscope.embedding.options.dimensions:#{null}}")
+    private Integer embeddingDimensions;
+    @Resource
+    private StreamingDocumentIngestor streamingDocumentIngestor;
 
     @Bean("pgVectorVectorStore")
     public VectorStore pgVectorVectorStore(@Qualifier("postgresJdbcTemplate") JdbcTemplate jdbcTemplate, EmbeddingModel dashscopeEmbeddingModel) {
+        // 写入时由批处理器按 token 数打包、并发向量化，查询向量直接透传
+        CachingEmbeddingModel embeddingModel = new CachingEmbeddingModel(dashscopeEmbeddingModel,
+                embeddingModelName, embeddingDimensions, embeddingCache, embeddingBatcher);
         // 创建PgVectorStore实例，配置向量存储的参数
-        VectorStore vectorStore = PgVectorStore.builder(jdbcTemplate, dashscopeEmbeddingModel)
+        PgVectorStore pgVectorStore = PgVectorStore.builder(jdbcTemplate, embeddingModel)
                 .dimensions(1536)                    // 设置向量的维度，可选，默认为模型维度或1536
                 .distanceType(COSINE_DISTANCE)       // 设置计算向量间距离的方法，可选，默认为余弦距离
                 .indexType(HNSW)                     // 设置索引类型，可选，默认为HNSW（高效近似最近邻搜索）
@@ -48,33 +70,60 @@ public class PgVectorVectorStoreConfig {
                 .vectorTableName("vector_store")     // 设置存储向量数据的表名，可选，默认为"vector_store"
                 .maxDocumentBatchSize(10000)         // 设置文档批量插入的最大数量，可选，默认为10000
                 .build();
-        // 加载文档
-        List<Document> documents = travelAppDocumentLoader.loadMarkdowns();
+        // 建表、加载文档、向量化放到后台执行，不阻塞应用启动
+        BackgroundIndexingVectorStore vectorStore = new BackgroundIndexingVectorStore("pgVectorVectorStore", pgVectorStore);
+        vectorStore.startIndexing(store -> {
+            // 包装后 Spring 不会再回调 PgVectorStore 的初始化方法，这里手动初始化表结构
+            pgVectorStore.afterPropertiesSet();
+            syncDocuments(jdbcTemplate, store);
+        });
+        return vectorStore;
+    }
+
+    /**
+     * 按内容哈希ID增量同步文档：只写入新增（含内容变化）的文档，删除已不存在的文档
+     * 文档按文件流式读取写入，内存中只保留文档ID集合
+     */
+    private void syncDocuments(JdbcTemplate jdbcTemplate, BackgroundIndexingVectorStore store) {
         // 关键：查询数据库中已存在的文档ID
-        List<String> existingIds = new ArrayList<>();
+        Set<String> existingIds = new HashSet<>();
         try {
             // 查询vector_store表中的所有文档ID（表名与配置一致）
-            existingIds = jdbcTemplate.queryForList(
-                    "SELECT id FROM public.vector_store",
+            existingIds.addAll(jdbcTemplate.queryForList(
+                    "SELECT id::text FROM public.vector_store",
                     String.class
-            );
+            ));
         } catch (Exception e) {
             // 首次启动时表可能刚创建，查询可能抛异常（忽略即可，视为无数据）
             log.warn("查询已有文档ID失败（可能是首次启动）：{}", e.getMessage());
         }
-        // 过滤出不存在的新文档（只添加ID不在existingIds中的文档）
-        List<String> finalExistingIds = existingIds;
-        List<Document> newDocuments = documents.stream()
-                .filter(doc -> !finalExistingIds.contains(doc.getId()))
+        // 当前文档的ID（文档ID为内容哈希，内容不变则ID不变）
+        Set<String> currentIds = ConcurrentHashMap.newKeySet();
+        StreamingDocumentIngestor.IngestionResult result = streamingDocumentIngestor
+                .task(store, travelAppDocumentLoader.listMarkdowns())
+                // 新文档 = 当前 - 已有；同时按ID去重，内容完全相同的切片只保留一份
+                .filter(doc -> currentIds.add(doc.getId()) && !existingIds.contains(doc.getId()))
+                .run();
+        // 过期文档 = 已有 - 当前
+        List<String> staleIds = existingIds.stream()
+                .filter(id -> !currentIds.contains(id))
                 .collect(Collectors.toList());
-        // 只添加新文档（避免重复）
-        if (!newDocuments.isEmpty()) {
-            log.info("发现{}个新文档，开始添加到向量库...", newDocuments.size());
-            vectorStore.add(newDocuments);
-        } else {
-            log.info("所有文档已存在，无需重复添加");
+        log.info("PgVector 文档同步：当前 {} 个，已入库 {} 个，新增 {} 个，删除 {} 个",
+                currentIds.size(), existingIds.size(), result.documents(), staleIds.size());
+        if (!staleIds.isEmpty()) {
+            deleteInBatches(jdbcTemplate, staleIds);
+        }
+    }
+
+    /**
+     * 批量删除文档
+     */
+    private void deleteInBatches(JdbcTemplate jdbcTemplate, List<String> ids) {
+        for (int i = 0; i < ids.size(); i += DELETE_BATCH_SIZE) {
+            List<Object[]> batchArgs = ids.subList(i, Math.min(i + DELETE_BATCH_SIZE, ids.size())).stream()
+                    .map(id -> new Object[]{UUID.fromString(id)})
+                    .collect(Collectors.toList());
+            jdbcTemplate.batchUpdate("DELETE FROM public.vector_store WHERE id = ?", batchArgs);
         }
-//        vectorStore.add(documents);
-        return vectorStore;
     }
 }
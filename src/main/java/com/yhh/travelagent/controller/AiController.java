@@ -1,12 +1,20 @@
 package com.yhh.travelagent.controller;
 
+import com.yhh.travelagent.advisor.SemanticCacheAdvisor;
 import com.yhh.travelagent.agent.HealthAssistant;
 import com.yhh.travelagent.agent.QuizAssistant;
 import com.yhh.travelagent.agent.TravelManus;
+import com.yhh.travelagent.rag.BackgroundIndexingVectorStore;
+import com.yhh.travelagent.rag.EmbeddingBatcher;
+import com.yhh.travelagent.tools.DownloadEngine;
+import com.yhh.travelagent.tools.HttpTransport;
+import com.yhh.travelagent.tools.SearchQuota;
+import com.yhh.travelagent.tools.SearchResultCache;
 import com.yhh.travelagent.travel.travelApp;
 import jakarta.annotation.Resource;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,6 +24,7 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import reactor.core.publisher.Flux;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * @Date 2025-07-13 0:22
@@ -34,11 +43,88 @@ public class AiController {
     @Resource
     private ChatModel dashscopeChatModel;
 
+    @Resource
+    private List<VectorStore> vectorStores;
+
+    @Resource
+    private EmbeddingBatcher embeddingBatcher;
+
+    @Resource
+    private HttpTransport toolHttpTransport;
+
+    @Resource
+    private SearchResultCache searchResultCache;
+
+    @Resource
+    private SearchQuota searchQuota;
+
+    @Resource
+    private DownloadEngine downloadEngine;
+
     @GetMapping("/travel_app/chat/sync")
     public String doChatWithTravelAppSync(String message, String chatId) {
         return travelApp.doChat(message, chatId);
     }
 
+    /**
+     * 查看语义缓存统计信息
+     */
+    @GetMapping("/travel_app/cache/stats")
+    public SemanticCacheAdvisor.CacheStats getTravelAppCacheStats() {
+        return travelApp.getSemanticCacheStats();
+    }
+
+    /**
+     * 查看知识库向量库的索引状态（预热中 / 已就绪 / 失败）及进度
+     */
+    @GetMapping("/rag/status")
+    public List<BackgroundIndexingVectorStore.IndexingStatus> getRagIndexingStatus() {
+        return vectorStores.stream()
+                .filter(BackgroundIndexingVectorStore.class::isInstance)
+                .map(store -> ((BackgroundIndexingVectorStore) store).getStatus())
+                .toList();
+    }
+
+    /**
+     * 查看知识库向量化吞吐统计
+     */
+    @GetMapping("/rag/embedding/stats")
+    public EmbeddingBatcher.EmbeddingStats getRagEmbeddingStats() {
+        return embeddingBatcher.getStats();
+    }
+
+    /**
+     * 查看联网工具共用 HTTP 客户端的请求统计
+     */
+    @GetMapping("/tools/http/stats")
+    public HttpTransport.TransportStats getToolHttpStats() {
+        return toolHttpTransport.getStats();
+    }
+
+    /**
+     * 查看网页搜索结果缓存统计
+     */
+    @GetMapping("/tools/search/cache/stats")
+    public SearchResultCache.CacheStats getSearchCacheStats() {
+        return searchResultCache.getStats();
+    }
+
+    /**
+     * 查看网页搜索配额统计
+     */
+    @GetMapping("/tools/search/quota/stats")
+    public SearchQuota.QuotaStats getSearchQuotaStats() {
+        return searchQuota.getStats();
+    }
+
+    /**
+     * 查看资源下载统计（续传、分段、复用、去重）
+     */
+    @GetMapping("/tools/download/stats")
+    public DownloadEngine.DownloadStats getDownloadStats() {
+        return downloadEngine.getStats();
+    }
+
     @GetMapping(value = "/travel_app/chat/sse", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<ServerSentEvent<String>> doChatWithTravelAppSSE(String message, String chatId) {
         return travelApp.doChatByStream(message, chatId)
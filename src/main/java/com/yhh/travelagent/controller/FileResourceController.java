@@ -1,11 +1,16 @@
 package com.yhh.travelagent.controller;
 
-import com.yhh.travelagent.constants.FileConstant;
+import com.yhh.travelagent.tools.BlobStore;
+import com.yhh.travelagent.tools.FileOperationTool;
+import com.yhh.travelagent.tools.HtmlGenerationTool;
+import com.yhh.travelagent.tools.PDFGenerationTool;
+import com.yhh.travelagent.tools.ResourceDownloadTool;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.Optional;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpHeaders;
@@ -15,7 +20,6 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
 
-import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.nio.file.Files;
@@ -35,19 +39,20 @@ import org.slf4j.LoggerFactory;
 public class FileResourceController {
     private static final Logger log = LoggerFactory.getLogger(FileResourceController.class);
 
-    // 设置各种文件目录
-    private final Path pdfDir = Paths.get(FileConstant.FILE_SAVE_DIR, "pdf");
-    private final Path htmlDir = Paths.get(FileConstant.FILE_SAVE_DIR, "html");
-    private final Path fileDir = Paths.get(FileConstant.FILE_SAVE_DIR, "file");
-    private final Path generalDir = Paths.get(FileConstant.FILE_SAVE_DIR);
+    // 文件均保存在内容寻址的文件存储中，按命名空间区分
+    private final BlobStore blobStore;
+
+    public FileResourceController(BlobStore blobStore) {
+        this.blobStore = blobStore;
+    }
 
     /**
      * 获取PDF文件列表
      */
     @GetMapping("/pdf/list")
     public List<Map<String, Object>> listPdfFiles() throws IOException {
-        log.info("正在获取PDF文件列表，目录: {}", pdfDir);
-        return listFiles(pdfDir, "pdf");
+        log.info("正在获取PDF文件列表");
+        return listFiles(PDFGenerationTool.NAMESPACE);
     }
 
     /**
@@ -56,7 +61,7 @@ public class FileResourceController {
     @GetMapping("/pdf/{filename:.+}")
     public ResponseEntity<Resource> downloadPdfFile(@PathVariable String filename) {
         log.info("请求下载PDF文件: {}", filename);
-        return downloadFile(pdfDir, filename, "pdf");
+        return downloadFile(PDFGenerationTool.NAMESPACE, filename);
     }
 
     /**
@@ -64,8 +69,8 @@ public class FileResourceController {
      */
     @GetMapping("/html/list")
     public List<Map<String, Object>> listHtmlFiles() throws IOException {
-        log.info("正在获取HTML文件列表，目录: {}", htmlDir);
-        return listFiles(htmlDir, "html");
+        log.info("正在获取HTML文件列表");
+        return listFiles(HtmlGenerationTool.NAMESPACE);
     }
 
     /**
@@ -75,7 +80,7 @@ public class FileResourceController {
     @GetMapping("/html/{filename:.+}")
     public ResponseEntity<Resource> downloadHtmlFile(@PathVariable String filename) {
         log.info("请求查看HTML文件: {}", filename);
-        return downloadFile(htmlDir, filename, "html");
+        return downloadFile(HtmlGenerationTool.NAMESPACE, filename);
     }
 
     /**
@@ -83,8 +88,8 @@ public class FileResourceController {
      */
     @GetMapping("/file/list")
     public List<Map<String, Object>> listGeneralFiles() throws IOException {
-        log.info("正在获取一般文件列表，目录: {}", fileDir);
-        return listFiles(fileDir, "file");
+        log.info("正在获取一般文件列表");
+        return listFiles(FileOperationTool.NAMESPACE);
     }
 
     /**
@@ -93,40 +98,63 @@ public class FileResourceController {
     @GetMapping("/file/{filename:.+}")
     public ResponseEntity<Resource> downloadGeneralFile(@PathVariable String filename) {
         log.info("请求下载一般文件: {}", filename);
-        return downloadFile(fileDir, filename, "file");
+        return downloadFile(FileOperationTool.NAMESPACE, filename);
     }
 
     /**
-     * 通用的文件列表方法
+     * 获取下载文件列表
      */
-    private List<Map<String, Object>> listFiles(Path directory, String type) throws IOException {
-        // 确保目录存在
-        File dir = directory.toFile();
-        if (!dir.exists()) {
-            dir.mkdirs();
-            log.info("创建目录: {}", directory);
-        }
+    @GetMapping("/download/list")
+    public List<Map<String, Object>> listDownloadedFiles() {
+        log.info("正在获取下载文件列表");
+        return listFiles(ResourceDownloadTool.NAMESPACE);
+    }
 
-        return Files.list(directory)
-                .filter(Files::isRegularFile)
-                .map(path -> {
+    /**
+     * 下载资源下载工具保存的文件
+     */
+    @GetMapping("/download/{filename:.+}")
+    public ResponseEntity<Resource> downloadDownloadedFile(@PathVariable String filename) {
+        log.info("请求下载已下载文件: {}", filename);
+        return downloadFile(ResourceDownloadTool.NAMESPACE, filename);
+    }
+
+    /**
+     * 查看文件存储统计（文件数、实际占用、去重次数）
+     */
+    @GetMapping("/store/stats")
+    public BlobStore.StoreStats getStoreStats() {
+        return blobStore.getStats();
+    }
+
+    /**
+     * 回收没有文件引用的内容
+     */
+    @PostMapping("/store/gc")
+    public BlobStore.GcResult gcStore() {
+        return blobStore.gc();
+    }
+
+    /**
+     * 通用的文件列表方法
+     */
+    private List<Map<String, Object>> listFiles(String namespace) {
+        return blobStore.list(namespace).stream()
+                .map(ref -> {
                     Map<String, Object> fileInfo = new HashMap<>();
-                    String fileName = path.getFileName().toString();
+                    String fileName = ref.name();
                     fileInfo.put("name", fileName);
-                    fileInfo.put("url", "/api/files/" + type + "/" + fileName);
-                    try {
-                        fileInfo.put("size", Files.size(path));
-                        fileInfo.put("lastModified", Files.getLastModifiedTime(path).toMillis());
-
-                        // 添加文件类型信息
-                        String fileType = determineFileType(fileName);
-                        fileInfo.put("type", fileType);
-
-                        // 添加显示方式，对于HTML和PDF是内联
-                        fileInfo.put("display", shouldDisplayInline(fileType) ? "inline" : "download");
-                    } catch (IOException e) {
-                        log.warn("获取文件信息失败: {}", fileName, e);
-                    }
+                    fileInfo.put("url", "/api/files/" + namespace + "/" + fileName);
+                    fileInfo.put("size", ref.size());
+                    fileInfo.put("lastModified", ref.modifiedAt());
+                    fileInfo.put("sha256", ref.sha256());
+
+                    // 添加文件类型信息
+                    String fileType = determineFileType(fileName);
+                    fileInfo.put("type", fileType);
+
+                    // 添加显示方式，对于HTML和PDF是内联
+                    fileInfo.put("display", shouldDisplayInline(fileType) ? "inline" : "download");
                     return fileInfo;
                 })
                 .collect(Collectors.toList());
@@ -135,14 +163,24 @@ public class FileResourceController {
     /**
      * 通用的文件下载方法
      */
-    private ResponseEntity<Resource> downloadFile(Path directory, String filename, String fileType) {
+    private ResponseEntity<Resource> downloadFile(String namespace, String filename) {
         try {
-            Path filePath = directory.resolve(filename).normalize();
+            Optional<BlobStore.Ref> ref;
+            try {
+                ref = blobStore.get(namespace, filename);
+            } catch (IllegalArgumentException e) {
+                log.warn("安全错误：请求路径超出允许范围: {}", filename);
+                return ResponseEntity.badRequest().build();
+            }
+            Path filePath = ref.map(file -> blobStore.objectPath(file.sha256())).orElse(null);
+            if (filePath == null) {
+                log.warn("文件不存在: {}/{}", namespace, filename);
+                return ResponseEntity.notFound().build();
+            }
             Resource resource = new UrlResource(filePath.toUri());
 
-            // 安全检查：确保文件确实在指定目录中
             if (!resource.exists()) {
-                log.warn("文件不存在: {}", filePath);
+                log.warn("文件内容不存在: {}", filePath);
                 return ResponseEntity.notFound().build();
             }
 
@@ -151,13 +189,8 @@ public class FileResourceController {
                 return ResponseEntity.badRequest().build();
             }
 
-            if (!filePath.startsWith(directory.normalize())) {
-                log.warn("安全错误：请求路径超出允许范围: {}", filePath);
-                return ResponseEntity.badRequest().build();
-            }
-
             // 检测文件类型
-            String contentType = determineContentType(filePath, fileType);
+            String contentType = determineContentType(filename, filePath);
             log.info("提供文件: {}, 类型: {}", filename, contentType);
 
             // 确定是否使用内联显示还是下载附件
@@ -167,7 +200,7 @@ public class FileResourceController {
             // 对于HTML文件，添加安全头
             HttpHeaders headers = new HttpHeaders();
             headers.add(HttpHeaders.CONTENT_DISPOSITION,
-                    disposition + "; filename=\"" + resource.getFilename() + "\"");
+                    disposition + "; filename=\"" + Path.of(filename).getFileName() + "\"");
 
             if (contentType.equals("text/html")) {
                 // 添加安全相关头信息，允许从原始站点加载资源
@@ -185,7 +218,9 @@ public class FileResourceController {
                                 "connect-src *;");  // 允许连接到任何源
             }
 
+            // 内容哈希即为 ETag，内容不变时浏览器可直接使用缓存
             return ResponseEntity.ok()
+                    .eTag(ref.get().sha256())
                     .headers(headers)
                     .contentType(MediaType.parseMediaType(contentType))
                     .body(resource);
@@ -217,9 +252,9 @@ public class FileResourceController {
     /**
      * 确定文件的内容类型
      */
-    private String determineContentType(Path filePath, String fileType) {
+    private String determineContentType(String filename, Path filePath) {
         // 首先尝试使用文件后缀名
-        String fileName = filePath.getFileName().toString().toLowerCase();
+        String fileName = filename.toLowerCase();
         if (fileName.endsWith(".pdf")) {
             return "application/pdf";
         } else if (fileName.endsWith(".html") || fileName.endsWith(".htm")) {
@@ -0,0 +1,169 @@
+package com.yhh.travelagent.demo.benchmark;
+
+import com.yhh.travelagent.rag.vectorstore.HnswVectorStore;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * @Date 2025-07-25 14:30
+ * @ClassName: VectorStoreBenchmark
+ * @Description: 本地向量库召回率 / 延迟 / 内存基准：暴力扫描 vs HNSW（float）vs HNSW（int8 量化 + 精确重排）
+ * 使用合成的聚类向量，不调用向量模型；参数：文档数 查询数 维度，默认 5000 200 1536
+ */
+public class VectorStoreBenchmark {
+
+    private static final int TOP_K = 10;
+    private static final int CLUSTERS = 50;
+
+    public static void main(String[] args) {
+        int documentCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int dimensions = args.length > 2 ? Integer.parseInt(args[2]) : 1536;
+
+        Random random = new Random(7);
+        float[][] centers = new float[CLUSTERS][];
+        for (int i = 0; i < CLUSTERS; i++) {
+            centers[i] = gaussian(random, dimensions, 1);
+        }
+        // 文本到向量的映射，充当向量模型
+        Map<String, float[]> embeddings = new HashMap<>();
+        List<Document> documents = new ArrayList<>(documentCount);
+        for (int i = 0; i < documentCount; i++) {
+            Document document = new Document("doc-" + i, "文档" + i, Map.of());
+            embeddings.put(document.getText(), clustered(random, centers));
+            documents.add(document);
+        }
+        List<String> queries = new ArrayList<>(queryCount);
+        for (int i = 0; i < queryCount; i++) {
+            String query = "查询" + i;
+            embeddings.put(query, clustered(random, centers));
+            queries.add(query);
+        }
+        EmbeddingModel embeddingModel = new MapEmbeddingModel(embeddings);
+
+        // 暴力扫描得到标准答案
+        List<Set<String>> groundTruth = new ArrayList<>(queryCount);
+        long bruteForceNanos = 0;
+        for (String query : queries) {
+            long start = System.nanoTime();
+            groundTruth.add(bruteForce(embeddings.get(query), documents, embeddings));
+            bruteForceNanos += System.nanoTime() - start;
+        }
+        System.out.printf("文档数: %d，查询数: %d，维度: %d%n", documentCount, queryCount, dimensions);
+        System.out.printf("%-16s 召回率@%d: %.4f  平均延迟: %8.3f ms  向量内存: %s%n", "暴力扫描", TOP_K, 1.0,
+                bruteForceNanos / 1e6 / queryCount, formatBytes((long) documentCount * dimensions * Float.BYTES));
+
+        for (boolean quantized : new boolean[]{false, true}) {
+            HnswVectorStore store = HnswVectorStore.builder(embeddingModel).quantized(quantized).build();
+            long buildStart = System.nanoTime();
+            store.add(documents);
+            long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+            // 预热
+            queries.stream().limit(20).forEach(query -> search(store, query));
+
+            long[] latencies = new long[queryCount];
+            int hits = 0;
+            for (int i = 0; i < queryCount; i++) {
+                long start = System.nanoTime();
+                List<Document> results = search(store, queries.get(i));
+                latencies[i] = System.nanoTime() - start;
+                for (Document result : results) {
+                    if (groundTruth.get(i).contains(result.getId())) {
+                        hits++;
+                    }
+                }
+            }
+            Arrays.sort(latencies);
+            String memory = quantized
+                    ? formatBytes(store.quantizedVectorMemoryBytes()) + "（遍历）+ " + formatBytes(store.vectorMemoryBytes()) + "（重排）"
+                    : formatBytes(store.vectorMemoryBytes());
+            System.out.printf("%-16s 召回率@%d: %.4f  平均延迟: %8.3f ms  P99: %8.3f ms  建图: %d ms  向量内存: %s%n",
+                    quantized ? "HNSW int8" : "HNSW float", TOP_K, (double) hits / (queryCount * TOP_K),
+                    Arrays.stream(latencies).average().orElse(0) / 1e6, latencies[(int) (queryCount * 0.99)] / 1e6,
+                    buildMillis, memory);
+        }
+    }
+
+    private static List<Document> search(HnswVectorStore store, String query) {
+        return store.similaritySearch(SearchRequest.builder().query(query).topK(TOP_K).build());
+    }
+
+    private static Set<String> bruteForce(float[] query, List<Document> documents, Map<String, float[]> embeddings) {
+        record Scored(String id, double score) {
+        }
+        return documents.stream()
+                .map(document -> new Scored(document.getId(),
+                        cosine(query, embeddings.get(document.getText()))))
+                .sorted((a, b) -> Double.compare(b.score(), a.score()))
+                .limit(TOP_K)
+                .map(Scored::id)
+                .collect(HashSet::new, Set::add, Set::addAll);
+    }
+
+    /**
+     * 在随机聚类中心附近生成向量，模拟真实文本向量的聚簇分布
+     */
+    private static float[] clustered(Random random, float[][] centers) {
+        float[] center = centers[random.nextInt(centers.length)];
+        float[] noise = gaussian(random, center.length, 0.5);
+        for (int i = 0; i < center.length; i++) {
+            noise[i] += center[i];
+        }
+        return noise;
+    }
+
+    private static float[] gaussian(Random random, int dimensions, double sigma) {
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) (random.nextGaussian() * sigma);
+        }
+        return vector;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0, normA = 0, normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+
+    private static String formatBytes(long bytes) {
+        return String.format("%.1f MB", bytes / 1024.0 / 1024.0);
+    }
+
+    /**
+     * 按文本查表返回向量的向量模型
+     */
+    private record MapEmbeddingModel(Map<String, float[]> embeddings) implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> results = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                results.add(new Embedding(embeddings.get(text), results.size()));
+            }
+            return new EmbeddingResponse(results);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embeddings.get(document.getText());
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.yhh.travelagent.rag;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * @Date 2025-07-21 9:40
+ * @ClassName: BackgroundIndexingVectorStore
+ * @Description: 后台建索引的向量库包装，启动时立即可用（空库），索引完成前检索返回空结果
+ */
+@Slf4j
+public class BackgroundIndexingVectorStore implements VectorStore {
+
+    // 每批写入的文档数量，用于汇报进度
+    private static final int INDEX_BATCH_SIZE = 20;
+
+    private final String name;
+    private final VectorStore delegate;
+
+    private volatile IndexingState state = IndexingState.WARMING;
+    private volatile String errorMessage;
+    private final AtomicInteger totalDocuments = new AtomicInteger();
+    private final AtomicInteger indexedDocuments = new AtomicInteger();
+    private volatile long startTime;
+    private volatile long endTime;
+
+    public BackgroundIndexingVectorStore(String name, VectorStore delegate) {
+        this.name = name;
+        this.delegate = delegate;
+    }
+
+    /**
+     * 在后台线程中执行建索引任务，任务结束后切换为就绪状态
+     *
+     * @param task 建索引任务，可通过 {@link #indexDocuments(List)} 写入文档并汇报进度
+     */
+    public void startIndexing(Consumer<BackgroundIndexingVectorStore> task) {
+        startTime = System.currentTimeMillis();
+        Thread thread = new Thread(() -> {
+            try {
+                task.accept(this);
+                state = IndexingState.READY;
+                endTime = System.currentTimeMillis();
+                log.info("向量库 {} 索引完成，文档数: {}，耗时: {} ms", name, indexedDocuments.get(), endTime - startTime);
+            } catch (Exception e) {
+                state = IndexingState.FAILED;
+                errorMessage = e.getMessage();
+                endTime = System.currentTimeMillis();
+                log.error("向量库 {} 索引失败", name, e);
+            }
+        }, "vector-store-indexing-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 分批写入文档并记录进度
+     */
+    public void indexDocuments(List<Document> documents) {
+        totalDocuments.addAndGet(documents.size());
+        for (int i = 0; i < documents.size(); i += INDEX_BATCH_SIZE) {
+            List<Document> batch = documents.subList(i, Math.min(i + INDEX_BATCH_SIZE, documents.size()));
+            delegate.add(batch);
+            int indexed = indexedDocuments.addAndGet(batch.size());
+            log.info("向量库 {} 索引进度: {}/{}", name, indexed, totalDocuments.get());
+        }
+    }
+
+    /**
+     * 获取索引状态
+     */
+    public IndexingStatus getStatus() {
+        long elapsed = (endTime > 0 ? endTime : System.currentTimeMillis()) - startTime;
+        return new IndexingStatus(name, state, indexedDocuments.get(), totalDocuments.get(), elapsed, errorMessage);
+    }
+
+    public boolean isReady() {
+        return state == IndexingState.READY;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        delegate.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delegate.delete(filterExpression);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        // 索引未完成时降级为无检索结果，避免阻塞请求或返回不完整的数据库错误
+        if (!isReady()) {
+            log.warn("向量库 {} 尚未就绪（{}），本次检索返回空结果", name, state);
+            return List.of();
+        }
+        return delegate.similaritySearch(request);
+    }
+
+    @Override
+    public <T> Optional<T> getNativeClient() {
+        return delegate.getNativeClient();
+    }
+
+    /**
+     * 索引状态
+     */
+    public enum IndexingState {
+        /**
+         * 预热中（正在加载、增强、向量化文档）
+         */
+        WARMING,
+
+        /**
+         * 已就绪
+         */
+        READY,
+
+        /**
+         * 索引失败
+         */
+        FAILED
+    }
+
+    /**
+     * 索引状态信息
+     *
+     * @param name             向量库名称
+     * @param state            索引状态
+     * @param indexedDocuments 已写入的文档数
+     * @param totalDocuments   待写入的文档总数
+     * @param elapsedMillis    已耗时（毫秒）
+     * @param errorMessage     失败原因
+     */
+    public record IndexingStatus(String name, IndexingState state, int indexedDocuments, int totalDocuments,
+                                 long elapsedMillis, String errorMessage) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.yhh.travelagent.rag;
+
+import cn.hutool.crypto.SecureUtil;
+import org.springframework.ai.document.Document;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * @Date 2025-07-20 14:40
+ * @ClassName: DocumentHashUtils
+ * @Description: 文档内容哈希工具，用于判断知识库文档是否发生变化
+ */
+public class DocumentHashUtils {
+
+    private DocumentHashUtils() {
+    }
+
+    /**
+     * 计算单个文档的内容哈希（正文 + 按键排序的元信息）
+     */
+    public static String hash(Document document) {
+        Map<String, Object> sortedMetadata = new TreeMap<>(document.getMetadata());
+        return SecureUtil.sha256(document.getText() + "\n" + sortedMetadata);
+    }
+
+    /**
+     * 由内容哈希生成确定性的文档ID（UUID 格式，兼容 PgVector 的 uuid 主键）
+     * 同一内容每次加载得到相同ID，内容变化则ID随之变化
+     */
+    public static String contentId(Document document) {
+        return UUID.nameUUIDFromBytes(hash(document).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * 将文档ID替换为内容哈希ID
+     */
+    public static Document withContentId(Document document) {
+        return document.mutate()
+                .id(contentId(document))
+                .build();
+    }
+}
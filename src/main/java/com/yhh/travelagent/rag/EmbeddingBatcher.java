@@ -0,0 +1,230 @@
+package com.yhh.travelagent.rag;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Date 2025-07-22 10:15
+ * @ClassName: EmbeddingBatcher
+ * @Description: 文档批量向量化：按 token 数和条数打包，多批并发请求，被限流时缩小批次并退避重试
+ */
+@Component
+@Slf4j
+public class EmbeddingBatcher {
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long RETRY_BACKOFF_MILLIS = 500;
+    // 连续成功多少批后把批次大小加一，逐步恢复到上限
+    private static final int GROW_AFTER_SUCCESSES = 5;
+
+    private final int maxBatchSize;
+    private final int maxBatchTokens;
+    private final ExecutorService executor;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+    // 当前批次大小，被限流时减半，连续成功后逐步增大
+    private final AtomicInteger currentBatchSize;
+    private final AtomicInteger successStreak = new AtomicInteger();
+
+    private final LongAdder documents = new LongAdder();
+    private final LongAdder tokens = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder elapsedMillis = new LongAdder();
+
+    public EmbeddingBatcher(@Value("${rag.embedding.max-batch-size:10}") int maxBatchSize,
+                            @Value("${rag.embedding.max-batch-tokens:8000}") int maxBatchTokens,
+                            @Value("${rag.embedding.concurrency:4}") int concurrency) {
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchTokens = maxBatchTokens;
+        this.currentBatchSize = new AtomicInteger(maxBatchSize);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "embedding-batcher-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("初始化批量向量化，批次上限: {} 条 / {} tokens，并发数: {}", maxBatchSize, maxBatchTokens, concurrency);
+    }
+
+    /**
+     * 批量向量化文档，返回的向量与文档顺序一致
+     * 向量化内容与 {@link EmbeddingModel#embed(Document)} 一致（正文 + EMBED 模式的元信息）
+     *
+     * @param embeddingModel 实际调用的向量模型
+     * @param documentList   待向量化的文档
+     * @return 文档向量
+     */
+    public List<float[]> embed(EmbeddingModel embeddingModel, List<Document> documentList) {
+        if (documentList.isEmpty()) {
+            return List.of();
+        }
+        long start = System.currentTimeMillis();
+        List<String> texts = documentList.stream()
+                .map(document -> document.getFormattedContent(MetadataMode.EMBED))
+                .toList();
+        List<List<String>> batches = packTexts(texts);
+        List<CompletableFuture<List<float[]>>> futures = batches.stream()
+                .map(batch -> CompletableFuture.supplyAsync(() -> embedBatch(embeddingModel, batch, 1), executor))
+                .toList();
+        List<float[]> embeddings = new ArrayList<>(texts.size());
+        try {
+            for (CompletableFuture<List<float[]>> future : futures) {
+                embeddings.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        elapsedMillis.add(elapsed);
+        documents.add(texts.size());
+        log.info("批量向量化完成，文档数: {}，请求批次: {}，耗时: {} ms，累计统计: {}",
+                texts.size(), batches.size(), elapsed, getStats());
+        return embeddings;
+    }
+
+    /**
+     * 获取向量化吞吐统计
+     */
+    public EmbeddingStats getStats() {
+        long millis = elapsedMillis.sum();
+        double documentsPerSecond = millis == 0 ? 0 : documents.sum() * 1000.0 / millis;
+        return new EmbeddingStats(documents.sum(), tokens.sum(), requests.sum(), throttled.sum(), failures.sum(),
+                currentBatchSize.get(), documentsPerSecond);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 按当前批次大小和 token 上限打包
+     */
+    private List<List<String>> packTexts(List<String> texts) {
+        int batchSize = currentBatchSize.get();
+        List<List<String>> batches = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int currentTokens = 0;
+        for (String text : texts) {
+            int textTokens = tokenCountEstimator.estimate(text);
+            if (!current.isEmpty() && (current.size() >= batchSize || currentTokens + textTokens > maxBatchTokens)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(text);
+            currentTokens += textTokens;
+            tokens.add(textTokens);
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    /**
+     * 请求一批向量，被限流时把批次拆半后退避重试；其他错误（如参数错误 400）不重试，直接失败
+     */
+    private List<float[]> embedBatch(EmbeddingModel embeddingModel, List<String> batch, int attempt) {
+        EmbeddingResponse response;
+        try {
+            requests.increment();
+            response = embeddingModel.call(new EmbeddingRequest(batch, EmbeddingOptionsBuilder.builder().build()));
+        } catch (RuntimeException e) {
+            if (!isThrottling(e) || attempt >= MAX_ATTEMPTS) {
+                failures.increment();
+                throw e;
+            }
+            throttled.increment();
+            onThrottled();
+            long backoff = RETRY_BACKOFF_MILLIS << (attempt - 1);
+            log.warn("向量化请求被限流（第 {} 次，{} 条），{} ms 后重试: {}", attempt, batch.size(), backoff, e.getMessage());
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw e;
+            }
+            // 批次超过当前允许的大小时拆成两半分别重试
+            if (batch.size() > 1 && batch.size() > currentBatchSize.get()) {
+                int middle = batch.size() / 2;
+                List<float[]> embeddings = new ArrayList<>(embedBatch(embeddingModel, batch.subList(0, middle), attempt + 1));
+                embeddings.addAll(embedBatch(embeddingModel, batch.subList(middle, batch.size()), attempt + 1));
+                return embeddings;
+            }
+            return embedBatch(embeddingModel, batch, attempt + 1);
+        }
+        List<Embedding> results = response.getResults();
+        // 数量不一致时无法确定向量与文档的对应关系，不能错位写入向量库
+        if (results.size() != batch.size()) {
+            failures.increment();
+            throw new IllegalStateException("向量化结果数量 " + results.size() + " 与请求的文本数量 " + batch.size() + " 不一致");
+        }
+        onSuccess();
+        return results.stream().map(Embedding::getOutput).toList();
+    }
+
+    private void onSuccess() {
+        if (successStreak.incrementAndGet() >= GROW_AFTER_SUCCESSES) {
+            successStreak.set(0);
+            currentBatchSize.updateAndGet(size -> Math.min(maxBatchSize, size + 1));
+        }
+    }
+
+    private void onThrottled() {
+        successStreak.set(0);
+        int size = currentBatchSize.updateAndGet(current -> Math.max(1, current / 2));
+        log.warn("向量化请求被限流，批次大小调整为: {}", size);
+    }
+
+    /**
+     * DashScope 限流错误码为 Throttling.*，HTTP 状态码为 429
+     */
+    private boolean isThrottling(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message != null && (message.contains("Throttling") || message.contains("429")
+                    || message.toLowerCase().contains("rate limit"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 向量化吞吐统计
+     *
+     * @param documents          已向量化的文档数
+     * @param tokens             估算的 token 总数
+     * @param requests           向量化请求次数（含重试）
+     * @param throttled          被限流次数
+     * @param failures           重试后仍失败的批次数
+     * @param currentBatchSize   当前批次大小
+     * @param documentsPerSecond 平均吞吐（文档数/秒）
+     */
+    public record EmbeddingStats(long documents, long tokens, long requests, long throttled, long failures,
+                                 int currentBatchSize, double documentsPerSecond) {
+    }
+}
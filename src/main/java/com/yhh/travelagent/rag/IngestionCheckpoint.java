@@ -0,0 +1,106 @@
+package com.yhh.travelagent.rag;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * @Date 2025-07-29 10:20
+ * @ClassName: IngestionCheckpoint
+ * @Description: 文档入库断点：记录已完整入库的文件及其内容哈希，中断或文件变化后重启时只处理未完成、已变化的文件
+ */
+@Slf4j
+public class IngestionCheckpoint {
+
+    private final File file;
+    // 入库流程的配置（如是否切分），配置变化后已完成的文件也需要重新处理
+    private final String settings;
+    // 文件名 -> 内容哈希
+    private final Map<String, String> completedFiles = new HashMap<>();
+
+    private IngestionCheckpoint(File file, String settings) {
+        this.file = file;
+        this.settings = settings;
+    }
+
+    /**
+     * 加载断点文件，文件不存在、损坏或配置不一致时返回空断点
+     */
+    public static IngestionCheckpoint load(File file, String settings) {
+        IngestionCheckpoint checkpoint = new IngestionCheckpoint(file, settings);
+        if (!file.exists()) {
+            return checkpoint;
+        }
+        try {
+            JSONObject json = JSONUtil.parseObj(FileUtil.readUtf8String(file));
+            if (!Objects.equals(settings, json.getStr("settings"))) {
+                log.info("入库配置已变化，忽略断点: {}", file);
+                return checkpoint;
+            }
+            JSONObject files = json.getJSONObject("files");
+            if (files != null) {
+                files.forEach((name, hash) -> checkpoint.completedFiles.put(name, String.valueOf(hash)));
+            }
+        } catch (Exception e) {
+            log.warn("读取入库断点失败，从头开始入库: {}", file, e);
+        }
+        return checkpoint;
+    }
+
+    /**
+     * 文件是否已按当前内容完整入库
+     */
+    public synchronized boolean isCompleted(String fileName, String fileHash) {
+        return fileHash.equals(completedFiles.get(fileName));
+    }
+
+    public synchronized void markCompleted(String fileName, String fileHash) {
+        completedFiles.put(fileName, fileHash);
+    }
+
+    /**
+     * 找出已入库但当前已不存在的文件，这些文件的文档需要删除
+     *
+     * @param currentFileNames 当前的全部文件名
+     */
+    public synchronized Set<String> removedFiles(Set<String> currentFileNames) {
+        Set<String> removed = new HashSet<>(completedFiles.keySet());
+        removed.removeAll(currentFileNames);
+        return removed;
+    }
+
+    public synchronized void remove(String fileName) {
+        completedFiles.remove(fileName);
+    }
+
+    public synchronized void clear() {
+        completedFiles.clear();
+    }
+
+    public synchronized boolean isEmpty() {
+        return completedFiles.isEmpty();
+    }
+
+    /**
+     * 写入断点文件
+     */
+    public synchronized void save() {
+        try {
+            FileUtil.mkParentDirs(file);
+            JSONObject json = JSONUtil.createObj()
+                    .set("settings", settings)
+                    .set("files", completedFiles);
+            FileUtil.writeUtf8String(json.toString(), file);
+        } catch (Exception e) {
+            log.warn("保存入库断点失败: {}", file, e);
+        }
+    }
+}
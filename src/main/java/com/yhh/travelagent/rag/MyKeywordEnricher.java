@@ -1,21 +1,70 @@
 package com.yhh.travelagent.rag;
 
-import jakarta.annotation.Resource;
+import com.yhh.travelagent.cache.CachingChatModel;
+import com.yhh.travelagent.cache.ChatResponseCache;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.transformer.KeywordMetadataEnricher;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * 基于 AI 的文档元信息增强器（为文档补充关键词元信息）
+ * 多个短文档合并到一次请求中提取关键词，多个请求并发执行，失败自动重试
  */
 @Component
+@Slf4j
 public class MyKeywordEnricher {
 
-    @Resource
-    private ChatModel dashscopeChatModel;
+    // 与 KeywordMetadataEnricher 保持一致的元信息键
+    private static final String EXCERPT_KEYWORDS_METADATA_KEY = "excerpt_keywords";
+    private static final int KEYWORD_COUNT = 5;
+    // 单次请求最多合并的文档数量和字符数
+    private static final int MAX_DOCUMENTS_PER_PROMPT = 4;
+    private static final int MAX_CHARS_PER_PROMPT = 3000;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MILLIS = 1000;
+
+    private static final String BATCH_KEYWORDS_TEMPLATE = """
+            下面有 %d 段文档，每段以【编号】开头。请为每段文档分别给出 %d 个不重复的关键词。
+            严格按以下格式输出，每段文档一行，不要输出其他内容：
+            编号: 关键词1,关键词2,关键词3
+
+            %s""";
+
+    // 解析形如 "1: 关键词1,关键词2" 或 "【1】：关键词1,关键词2" 的行
+    private static final Pattern BATCH_LINE_PATTERN = Pattern.compile("^\\s*【?(\\d+)】?\\s*[:：]\\s*(.+)$");
+
+    private final ChatModel chatModel;
+    private final ExecutorService executor;
+
+    public MyKeywordEnricher(ChatModel dashscopeChatModel, ChatResponseCache chatResponseCache,
+                             @Value("${rag.enrich.parallelism:4}") int parallelism) {
+        // 相同内容的文档走精确匹配缓存
+        this.chatModel = new CachingChatModel(dashscopeChatModel, chatResponseCache);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "keyword-enricher-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("初始化关键词增强器，并发数: {}", parallelism);
+    }
 
     /**
      * 为文档列表添加关键词元信息，提升可搜索性
@@ -24,10 +73,119 @@ public class MyKeywordEnricher {
      * @return 增强后的文档列表
      */
     public List<Document> enrichDocuments(List<Document> documents) {
-        // 创建KeywordMetadataEnricher实例，使用AI模型提取关键词
-        KeywordMetadataEnricher keywordMetadataEnricher = new KeywordMetadataEnricher(dashscopeChatModel, 5);
-        // 执行文档增强操作
-        return keywordMetadataEnricher.apply(documents);
+        long start = System.currentTimeMillis();
+        List<List<Document>> batches = packDocuments(documents);
+        List<CompletableFuture<Void>> futures = batches.stream()
+                .map(batch -> CompletableFuture.runAsync(() -> enrichBatch(batch), executor))
+                .toList();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        log.info("关键词增强完成，文档数: {}，请求批次: {}，耗时: {} ms",
+                documents.size(), batches.size(), System.currentTimeMillis() - start);
+        return documents;
     }
-}
 
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 按文档数量和字符数把文档打包，短文档合并到同一次请求
+     */
+    private List<List<Document>> packDocuments(List<Document> documents) {
+        List<List<Document>> batches = new ArrayList<>();
+        List<Document> current = new ArrayList<>();
+        int currentChars = 0;
+        for (Document document : documents) {
+            int length = document.getText() == null ? 0 : document.getText().length();
+            if (!current.isEmpty() && (current.size() >= MAX_DOCUMENTS_PER_PROMPT || currentChars + length > MAX_CHARS_PER_PROMPT)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentChars = 0;
+            }
+            current.add(document);
+            currentChars += length;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    /**
+     * 增强一批文档，合并请求的结果缺失时逐个文档补齐
+     */
+    private void enrichBatch(List<Document> batch) {
+        Map<Integer, String> keywordsByIndex = new HashMap<>();
+        if (batch.size() > 1) {
+            try {
+                keywordsByIndex = withRetry(() -> extractBatchKeywords(batch));
+            } catch (Exception e) {
+                log.warn("合并提取关键词失败，改为逐个文档提取: {}", e.getMessage());
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Document document = batch.get(i);
+            String keywords = keywordsByIndex.get(i + 1);
+            if (keywords != null) {
+                document.getMetadata().put(EXCERPT_KEYWORDS_METADATA_KEY, keywords);
+                continue;
+            }
+            try {
+                withRetry(() -> new KeywordMetadataEnricher(chatModel, KEYWORD_COUNT).apply(List.of(document)));
+            } catch (Exception e) {
+                // 单个文档增强失败不影响整体入库，只是缺少关键词元信息
+                log.error("文档 {} 提取关键词失败", document.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * 一次请求为多个文档提取关键词
+     *
+     * @return 文档编号（从 1 开始）到关键词的映射
+     */
+    private Map<Integer, String> extractBatchKeywords(List<Document> batch) {
+        StringBuilder context = new StringBuilder();
+        for (int i = 0; i < batch.size(); i++) {
+            context.append("【").append(i + 1).append("】\n").append(batch.get(i).getText()).append("\n\n");
+        }
+        String promptText = String.format(BATCH_KEYWORDS_TEMPLATE, batch.size(), KEYWORD_COUNT, context);
+        String output = chatModel.call(new Prompt(promptText)).getResult().getOutput().getText();
+
+        Map<Integer, String> keywordsByIndex = new HashMap<>();
+        for (String line : output.split("\n")) {
+            Matcher matcher = BATCH_LINE_PATTERN.matcher(line);
+            if (matcher.matches()) {
+                int index = Integer.parseInt(matcher.group(1));
+                if (index >= 1 && index <= batch.size()) {
+                    keywordsByIndex.put(index, matcher.group(2).trim());
+                }
+            }
+        }
+        return keywordsByIndex;
+    }
+
+    /**
+     * 失败时按指数退避重试
+     */
+    private <T> T withRetry(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                long backoff = RETRY_BACKOFF_MILLIS << (attempt - 1);
+                log.warn("调用大模型提取关键词失败（第 {} 次），{} ms 后重试: {}", attempt, backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.yhh.travelagent.rag;
 
+import com.yhh.travelagent.cache.CachingChatModel;
+import com.yhh.travelagent.cache.ChatResponseCache;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.rag.Query;
@@ -14,8 +16,9 @@ import org.springframework.stereotype.Component;
 public class QueryRewriter {
     private final QueryTransformer queryTransformer;
 
-    public QueryRewriter(ChatModel dashscopeChatModel) {
-        ChatClient.Builder builder = ChatClient.builder(dashscopeChatModel);
+    public QueryRewriter(ChatModel dashscopeChatModel, ChatResponseCache chatResponseCache) {
+        // 相同的问题重写结果相同，走精确匹配缓存
+        ChatClient.Builder builder = ChatClient.builder(new CachingChatModel(dashscopeChatModel, chatResponseCache));
         // 创建查询重写转换器
         queryTransformer = RewriteQueryTransformer.builder()
                 .chatClientBuilder(builder)
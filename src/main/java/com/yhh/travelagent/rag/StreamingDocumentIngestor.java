@@ -0,0 +1,244 @@
+package com.yhh.travelagent.rag;
+
+import cn.hutool.crypto.SecureUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * @Date 2025-07-29 10:50
+ * @ClassName: StreamingDocumentIngestor
+ * @Description: 流式文档入库：按文件逐个读取、切分、增强、向量化写入，带背压，内存中只保留正在处理的几个文件
+ * 配合 {@link IngestionCheckpoint} 定期记录已完成的文件，中断后重启从断点继续
+ */
+@Component
+@Slf4j
+public class StreamingDocumentIngestor {
+
+    private static final String FILENAME_METADATA_KEY = "filename";
+
+    private final TravelAppDocumentLoader travelAppDocumentLoader;
+    private final MyTokenTextSplitter myTokenTextSplitter;
+    private final MyKeywordEnricher myKeywordEnricher;
+    // 同时处理（读取、增强）的文件数量，写入向量库按文件顺序串行
+    private final int concurrency;
+    // 每完成多少个文件保存一次断点
+    private final int checkpointInterval;
+    // 是否对 Markdown 段落再按 token 切分
+    private final boolean splitEnabled;
+
+    public StreamingDocumentIngestor(TravelAppDocumentLoader travelAppDocumentLoader,
+                                     MyTokenTextSplitter myTokenTextSplitter,
+                                     MyKeywordEnricher myKeywordEnricher,
+                                     @Value("${rag.ingest.concurrency:2}") int concurrency,
+                                     @Value("${rag.ingest.checkpoint-interval:20}") int checkpointInterval,
+                                     @Value("${rag.ingest.split-enabled:false}") boolean splitEnabled) {
+        this.travelAppDocumentLoader = travelAppDocumentLoader;
+        this.myTokenTextSplitter = myTokenTextSplitter;
+        this.myKeywordEnricher = myKeywordEnricher;
+        this.concurrency = concurrency;
+        this.checkpointInterval = checkpointInterval;
+        this.splitEnabled = splitEnabled;
+    }
+
+    /**
+     * 创建入库任务
+     *
+     * @param store     写入的向量库
+     * @param resources 待入库的文件
+     */
+    public IngestionTask task(BackgroundIndexingVectorStore store, List<Resource> resources) {
+        return new IngestionTask(store, resources);
+    }
+
+    /**
+     * 入库流程的配置摘要，写入断点，配置变化时断点失效
+     */
+    public String settings() {
+        return "split=" + splitEnabled;
+    }
+
+    private String fileHash(Resource resource) {
+        try (InputStream in = resource.getInputStream()) {
+            return SecureUtil.sha256(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取文件失败: " + resource.getFilename(), e);
+        }
+    }
+
+    /**
+     * 读取并切分单个文件；切分会生成随机ID，切分后重新换成内容哈希ID
+     */
+    private List<Document> read(Resource resource) {
+        List<Document> documents = travelAppDocumentLoader.loadMarkdown(resource);
+        if (!splitEnabled) {
+            return documents;
+        }
+        return myTokenTextSplitter.splitDocuments(documents).stream()
+                .map(DocumentHashUtils::withContentId)
+                .toList();
+    }
+
+    /**
+     * 一个文件处理后的文档
+     */
+    private record FileDocuments(String fileName, String fileHash, List<Document> documents) {
+    }
+
+    /**
+     * 入库结果
+     *
+     * @param files         处理的文件数
+     * @param skippedFiles  按断点跳过的文件数
+     * @param removedFiles  已删除文件的数量（其文档已从向量库删除）
+     * @param documents     写入向量库的文档数
+     * @param elapsedMillis 耗时（毫秒）
+     */
+    public record IngestionResult(int files, int skippedFiles, int removedFiles, int documents, long elapsedMillis) {
+    }
+
+    /**
+     * 入库任务
+     */
+    public final class IngestionTask {
+        private final BackgroundIndexingVectorStore store;
+        private final List<Resource> resources;
+        private boolean enrich;
+        private Predicate<Document> documentFilter = document -> true;
+        private IngestionCheckpoint checkpoint;
+        private BooleanSupplier beforeCheckpoint = () -> true;
+
+        private IngestionTask(BackgroundIndexingVectorStore store, List<Resource> resources) {
+            this.store = store;
+            this.resources = resources;
+        }
+
+        /**
+         * 写入前用 AI 补充关键词元信息
+         */
+        public IngestionTask enrich(boolean enrich) {
+            this.enrich = enrich;
+            return this;
+        }
+
+        /**
+         * 只写入满足条件的文档（在增强之前过滤，过滤掉的文档不消耗模型调用）
+         */
+        public IngestionTask filter(Predicate<Document> documentFilter) {
+            this.documentFilter = documentFilter;
+            return this;
+        }
+
+        /**
+         * 启用断点：跳过已完成且内容未变的文件，定期保存断点
+         *
+         * @param checkpoint       断点
+         * @param beforeCheckpoint 保存断点前的回调，用于先持久化向量库（如保存快照）；返回 false 时不保存断点，保证断点不超前于数据
+         */
+        public IngestionTask checkpoint(IngestionCheckpoint checkpoint, BooleanSupplier beforeCheckpoint) {
+            this.checkpoint = checkpoint;
+            this.beforeCheckpoint = beforeCheckpoint;
+            return this;
+        }
+
+        /**
+         * 在当前线程执行入库，直到全部文件处理完成
+         */
+        public IngestionResult run() {
+            long start = System.currentTimeMillis();
+            AtomicInteger files = new AtomicInteger();
+            AtomicInteger skippedFiles = new AtomicInteger();
+            AtomicInteger documents = new AtomicInteger();
+            AtomicInteger sinceCheckpoint = new AtomicInteger();
+            int removedFiles = checkpoint == null ? 0 : removeDeletedFiles();
+
+            Flux.fromIterable(resources)
+                    // 读取、切分、增强并发执行；prefetch 为 1，上游按需读取文件，内存中最多保留 concurrency 个文件的文档
+                    .flatMapSequential(resource -> Mono.fromCallable(() -> prepare(resource))
+                            .subscribeOn(Schedulers.boundedElastic()), concurrency, 1)
+                    .doOnNext(file -> {
+                        if (file.documents() == null) {
+                            skippedFiles.incrementAndGet();
+                            return;
+                        }
+                        if (checkpoint != null) {
+                            // 删除该文件上次未完成或旧版本写入的文档
+                            store.delete(new FilterExpressionBuilder().eq(FILENAME_METADATA_KEY, file.fileName()).build());
+                        }
+                        store.indexDocuments(file.documents());
+                        files.incrementAndGet();
+                        documents.addAndGet(file.documents().size());
+                        if (checkpoint != null) {
+                            checkpoint.markCompleted(file.fileName(), file.fileHash());
+                            if (sinceCheckpoint.incrementAndGet() >= checkpointInterval) {
+                                sinceCheckpoint.set(0);
+                                saveCheckpoint();
+                            }
+                        }
+                    })
+                    .blockLast();
+            if (checkpoint != null && (sinceCheckpoint.get() > 0 || removedFiles > 0)) {
+                saveCheckpoint();
+            }
+            IngestionResult result = new IngestionResult(files.get(), skippedFiles.get(), removedFiles, documents.get(),
+                    System.currentTimeMillis() - start);
+            log.info("向量库 {} 流式入库完成: {}", store.getName(), result);
+            return result;
+        }
+
+        /**
+         * 读取、切分、过滤、增强单个文件；按断点跳过的文件返回的文档为 null
+         */
+        private FileDocuments prepare(Resource resource) {
+            String fileName = resource.getFilename();
+            String fileHash = checkpoint == null ? null : fileHash(resource);
+            if (checkpoint != null && checkpoint.isCompleted(fileName, fileHash)) {
+                return new FileDocuments(fileName, fileHash, null);
+            }
+            List<Document> documents = read(resource).stream()
+                    .filter(documentFilter)
+                    .toList();
+            if (enrich && !documents.isEmpty()) {
+                documents = myKeywordEnricher.enrichDocuments(documents);
+            }
+            return new FileDocuments(fileName, fileHash, documents);
+        }
+
+        /**
+         * 删除断点中记录、但当前已不存在的文件的文档
+         */
+        private int removeDeletedFiles() {
+            Set<String> currentFileNames = resources.stream()
+                    .map(Resource::getFilename)
+                    .collect(Collectors.toSet());
+            Set<String> removed = checkpoint.removedFiles(currentFileNames);
+            for (String fileName : removed) {
+                store.delete(new FilterExpressionBuilder().eq(FILENAME_METADATA_KEY, fileName).build());
+                checkpoint.remove(fileName);
+            }
+            return removed.size();
+        }
+
+        private void saveCheckpoint() {
+            if (beforeCheckpoint.getAsBoolean()) {
+                checkpoint.save();
+            }
+        }
+    }
+}
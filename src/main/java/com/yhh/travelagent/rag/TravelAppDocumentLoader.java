@@ -8,7 +8,6 @@ import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.stereotype.Component;
 import org.springframework.core.io.Resource;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -25,25 +24,34 @@ public class TravelAppDocumentLoader {
         this.resourcePatternResolver = resourcePatternResolver;
     }
 
-    public List<Document> loadMarkdowns() {
-        List<Document> allDocuments = new ArrayList<>();
+    /**
+     * 列出知识库中的 Markdown 文件（只取文件句柄，不读取内容）
+     */
+    public List<Resource> listMarkdowns() {
         try {
             // 这里可以修改为你要加载的多个 Markdown 文件的路径模式
-            Resource[] resources = resourcePatternResolver.getResources("classpath:document/*.md");
-            for (Resource resource : resources) {
-                String fileName = resource.getFilename();
-                MarkdownDocumentReaderConfig config = MarkdownDocumentReaderConfig.builder()
-                        .withHorizontalRuleCreateDocument(true)
-                        .withIncludeCodeBlock(false)
-                        .withIncludeBlockquote(false)
-                        .withAdditionalMetadata("filename", fileName)
-                        .build();
-                MarkdownDocumentReader reader = new MarkdownDocumentReader(resource, config);
-                allDocuments.addAll(reader.get());
-            }
+            return List.of(resourcePatternResolver.getResources("classpath:document/*.md"));
         } catch (IOException e) {
             log.error("Markdown 文档加载失败", e);
+            return List.of();
         }
-        return allDocuments;
+    }
+
+    /**
+     * 读取单个 Markdown 文件，按分隔线拆分为多个文档
+     */
+    public List<Document> loadMarkdown(Resource resource) {
+        String fileName = resource.getFilename();
+        MarkdownDocumentReaderConfig config = MarkdownDocumentReaderConfig.builder()
+                .withHorizontalRuleCreateDocument(true)
+                .withIncludeCodeBlock(false)
+                .withIncludeBlockquote(false)
+                .withAdditionalMetadata("filename", fileName)
+                .build();
+        MarkdownDocumentReader reader = new MarkdownDocumentReader(resource, config);
+        // MarkdownDocumentReader 生成随机ID，这里换成内容哈希ID，便于增量入库
+        return reader.get().stream()
+                .map(DocumentHashUtils::withContentId)
+                .toList();
     }
 }
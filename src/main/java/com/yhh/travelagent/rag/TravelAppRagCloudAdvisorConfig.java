@@ -23,16 +23,23 @@ public class TravelAppRagCloudAdvisorConfig {
     @Value("${spring.ai.dashscope.api-key}")
     private String dashScopeApiKey;
 
+    /**
+     * 云知识库检索器，也作为多查询检索的检索源之一
+     */
     @Bean
-    public Advisor travelAppRagCloudAdvisor() {
+    public DocumentRetriever travelAppCloudDocumentRetriever() {
         DashScopeApi dashScopeApi = new DashScopeApi(dashScopeApiKey);
         final String KNOWLEDGE_INDEX = "旅游规划大师";
-        DocumentRetriever documentRetriever = new DashScopeDocumentRetriever(dashScopeApi,
+        return new DashScopeDocumentRetriever(dashScopeApi,
                 DashScopeDocumentRetrieverOptions.builder()
                         .withIndexName(KNOWLEDGE_INDEX)
                         .build());
+    }
+
+    @Bean
+    public Advisor travelAppRagCloudAdvisor() {
         return RetrievalAugmentationAdvisor.builder()
-                .documentRetriever(documentRetriever)
+                .documentRetriever(travelAppCloudDocumentRetriever())
                 .build();
     }
 }
@@ -1,5 +1,7 @@
 package com.yhh.travelagent.rag;
 
+import com.yhh.travelagent.rag.retrieval.LocalDocumentRanker;
+import com.yhh.travelagent.rag.retrieval.RerankingDocumentRetriever;
 import org.springframework.ai.chat.client.advisor.RetrievalAugmentationAdvisor;
 import org.springframework.ai.chat.client.advisor.api.Advisor;
 import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
@@ -29,10 +31,11 @@ public class TravelAppRagCustomAdvisorFactory {
                 .vectorStore(vectorStore)
                 .filterExpression(expression) // 过滤条件
                 .similarityThreshold(0.5) // 相似度阈值
-                .topK(3) // 返回文档数量
+                .topK(10) // 多召回一些候选，交给重排器挑选
                 .build();
         return RetrievalAugmentationAdvisor.builder()
-                .documentRetriever(documentRetriever)
+                // 本地重排后只保留最好的 3 条
+                .documentRetriever(new RerankingDocumentRetriever(documentRetriever, new LocalDocumentRanker(3)))
                 .queryAugmenter(TravelAppContextualQueryAugmenterFactory.createInstance())
                 .build();
     }
@@ -0,0 +1,35 @@
+package com.yhh.travelagent.rag;
+
+import com.yhh.travelagent.rag.retrieval.Bm25DocumentRetriever;
+import com.yhh.travelagent.rag.retrieval.RrfDocumentRetriever;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
+import org.springframework.ai.rag.retrieval.search.VectorStoreDocumentRetriever;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.List;
+
+/**
+ * 创建混合检索器（向量 + BM25 关键词，RRF 融合）的工厂
+ * 检索增强顾问见 {@link TravelAppRagMultiQueryAdvisorConfig}
+ */
+public class TravelAppRagHybridAdvisorFactory {
+    // 向量检索返回的候选数量
+    private static final int VECTOR_TOP_K = 8;
+    // 融合后交给重排器的候选数量
+    private static final int FUSED_TOP_K = 8;
+
+    /**
+     * 创建混合检索器（未重排），由调用方在外层重排
+     *
+     * @param vectorStore   向量存储
+     * @param bm25Retriever 同一批文档的 BM25 检索器
+     * @return 向量与 BM25 结果按 RRF 融合的检索器
+     */
+    public static DocumentRetriever createHybridRetriever(VectorStore vectorStore, Bm25DocumentRetriever bm25Retriever) {
+        DocumentRetriever vectorRetriever = VectorStoreDocumentRetriever.builder()
+                .vectorStore(vectorStore)
+                .topK(VECTOR_TOP_K)
+                .build();
+        return new RrfDocumentRetriever(List.of(vectorRetriever, bm25Retriever), FUSED_TOP_K);
+    }
+}
@@ -0,0 +1,94 @@
+package com.yhh.travelagent.rag;
+
+import com.yhh.travelagent.cache.CachingChatModel;
+import com.yhh.travelagent.cache.ChatResponseCache;
+import com.yhh.travelagent.rag.retrieval.Bm25DocumentRetriever;
+import com.yhh.travelagent.rag.retrieval.LocalDocumentRanker;
+import com.yhh.travelagent.rag.retrieval.ParallelMultiQueryDocumentRetriever;
+import com.yhh.travelagent.rag.retrieval.RerankingDocumentRetriever;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.RetrievalAugmentationAdvisor;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.generation.augmentation.ContextualQueryAugmenter;
+import org.springframework.ai.rag.preretrieval.query.expansion.MultiQueryExpander;
+import org.springframework.ai.rag.preretrieval.query.expansion.QueryExpander;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
+import org.springframework.ai.rag.retrieval.search.VectorStoreDocumentRetriever;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @Date 2025-07-28 11:00
+ * @ClassName: TravelAppRagMultiQueryAdvisorConfig
+ * @Description: 多查询并行检索顾问配置：原始查询、重写查询、扩展查询在本地知识库、PgVector、云知识库上并行检索后合并
+ */
+@Configuration
+public class TravelAppRagMultiQueryAdvisorConfig {
+    // 每个检索源返回的候选数量
+    private static final int SOURCE_TOP_K = 8;
+    // 合并后交给重排器的候选数量
+    private static final int MERGED_TOP_K = 10;
+    // 重排后放入提示词的文档数量
+    private static final int RERANKED_TOP_K = 3;
+    // 多查询扩展生成的查询数量
+    private static final int EXPANDED_QUERY_COUNT = 2;
+
+    @Value("${rag.multi-query.timeout:5s}")
+    private Duration timeout;
+    // 原始查询检索完成后等待扩展查询的时间，扩展查询不阻塞回答
+    @Value("${rag.multi-query.expansion-grace:300ms}")
+    private Duration expansionGrace;
+
+    /**
+     * 检索与查询扩展都是阻塞的网络调用，使用虚拟线程
+     */
+    @Bean(destroyMethod = "shutdown")
+    ExecutorService ragRetrievalExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @Bean
+    Advisor travelAppMultiQueryRagAdvisor(@Qualifier("travelAppVectorStore") VectorStore travelAppVectorStore,
+                                          @Qualifier("pgVectorVectorStore") VectorStore pgVectorVectorStore,
+                                          Bm25DocumentRetriever travelAppBm25Retriever,
+                                          @Qualifier("travelAppCloudDocumentRetriever") DocumentRetriever travelAppCloudDocumentRetriever,
+                                          QueryRewriter queryRewriter,
+                                          ChatModel dashscopeChatModel,
+                                          ChatResponseCache chatResponseCache) {
+        List<DocumentRetriever> retrievers = List.of(
+                // 本地知识库：向量 + BM25 混合检索
+                TravelAppRagHybridAdvisorFactory.createHybridRetriever(travelAppVectorStore, travelAppBm25Retriever),
+                VectorStoreDocumentRetriever.builder()
+                        .vectorStore(pgVectorVectorStore)
+                        .topK(SOURCE_TOP_K)
+                        .build(),
+                travelAppCloudDocumentRetriever);
+        List<QueryExpander> expanders = List.of(
+                // 查询重写不再串行阻塞在检索之前，而是作为一路扩展并行执行
+                query -> List.of(new Query(queryRewriter.doQueryRewrite(query.text()))),
+                MultiQueryExpander.builder()
+                        .chatClientBuilder(ChatClient.builder(new CachingChatModel(dashscopeChatModel, chatResponseCache)))
+                        .numberOfQueries(EXPANDED_QUERY_COUNT)
+                        .build());
+        DocumentRetriever multiQueryRetriever = new ParallelMultiQueryDocumentRetriever(
+                retrievers, expanders, ragRetrievalExecutor(), timeout, expansionGrace, MERGED_TOP_K);
+        return RetrievalAugmentationAdvisor.builder()
+                .documentRetriever(new RerankingDocumentRetriever(multiQueryRetriever, new LocalDocumentRanker(RERANKED_TOP_K)))
+                // 没有检索到文档时仍正常回答（例如知识库预热中）
+                .queryAugmenter(ContextualQueryAugmenter.builder().allowEmptyContext(true).build())
+                // 未指定时顾问会自建一个不会关闭的线程池，这里复用检索线程池
+                .taskExecutor(new TaskExecutorAdapter(ragRetrievalExecutor()))
+                .build();
+    }
+}
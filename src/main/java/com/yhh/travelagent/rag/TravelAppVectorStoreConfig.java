@@ -1,15 +1,21 @@
 package com.yhh.travelagent.rag;
 
+import cn.hutool.core.io.FileUtil;
+import com.yhh.travelagent.cache.CachingEmbeddingModel;
+import com.yhh.travelagent.cache.EmbeddingCache;
+import com.yhh.travelagent.constants.FileConstant;
+import com.yhh.travelagent.rag.retrieval.Bm25DocumentRetriever;
+import com.yhh.travelagent.rag.vectorstore.HnswVectorStore;
 import jakarta.annotation.Resource;
-import org.springframework.ai.document.Document;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.List;
+import java.io.File;
 
 /**
  * @Date 2025-07-12 0:04
@@ -17,26 +23,114 @@ import java.util.List;
  * @Description: 初始化向量数据库并且保存文档
  */
 @Configuration
+@Slf4j
 public class TravelAppVectorStoreConfig {
+    // 向量库快照目录，快照与入库断点一起保存，重启时只处理未完成或已变化的文件
+    private static final String SNAPSHOT_DIR = FileConstant.FILE_SAVE_DIR + "/vector-store";
+    private static final String SNAPSHOT_FILE = SNAPSHOT_DIR + "/travel-app-vector-store.bin";
+    private static final String CHECKPOINT_FILE = SNAPSHOT_DIR + "/travel-app-vector-store.checkpoint.json";
+    // BM25 检索返回的候选数量
+    private static final int BM25_TOP_K = 8;
+
     @Resource
     private TravelAppDocumentLoader travelAppDocumentLoader;
     @Resource
-    private MyKeywordEnricher myKeywordEnricher;
+    private StreamingDocumentIngestor streamingDocumentIngestor;
+    @Resource
+    private EmbeddingCache embeddingCache;
     @Resource
-    private MyTokenTextSplitter myTokenTextSplitter;
+    private EmbeddingBatcher embeddingBatcher;
+    @Value("${spring.ai.dashscope.embedding.options.model:text-embedding-v1}")
+    private String embeddingModelName;
+    @Value("${spring.ai.dashscope.embedding.options.dimensions:#{null}}")
+    private Integer embeddingDimensions;
+    @Value("${rag.hnsw.m:16}")
+    private int hnswM;
+    @Value("${rag.hnsw.ef-construction:200}")
+    private int hnswEfConstruction;
+    @Value("${rag.hnsw.ef-search:64}")
+    private int hnswEfSearch;
+    @Value("${rag.hnsw.quantized:false}")
+    private boolean hnswQuantized;
+
+    /**
+     * 知识库的 BM25 关键词索引，与向量库使用同一批文档切片，随向量库一起构建
+     */
+    @Bean
+    Bm25DocumentRetriever travelAppBm25Retriever() {
+        return new Bm25DocumentRetriever(BM25_TOP_K);
+    }
+
     @Bean
     @Qualifier("travelAppVectorStore")
-    VectorStore travelAppVectorStore(EmbeddingModel dashscopeEmbeddingModel) {
-        SimpleVectorStore simpleVectorStore = SimpleVectorStore.builder(dashscopeEmbeddingModel)
+    VectorStore travelAppVectorStore(EmbeddingModel dashscopeEmbeddingModel, Bm25DocumentRetriever travelAppBm25Retriever) {
+        // 文档向量按内容哈希缓存到磁盘，重启时未变化的文档无需重新向量化
+        CachingEmbeddingModel cachingEmbeddingModel = new CachingEmbeddingModel(dashscopeEmbeddingModel,
+                embeddingModelName, embeddingDimensions, embeddingCache, embeddingBatcher);
+        // HNSW 近似最近邻检索，代替 SimpleVectorStore 的全量扫描
+        HnswVectorStore hnswVectorStore = HnswVectorStore.builder(cachingEmbeddingModel)
+                .m(hnswM)
+                .efConstruction(hnswEfConstruction)
+                .efSearch(hnswEfSearch)
+                .quantized(hnswQuantized)
                 .build();
-        // 加载文档
-        List<Document> documents = travelAppDocumentLoader.loadMarkdowns();
-//        //自主切分文档
-//        List<Document> splitDocuments = myTokenTextSplitter.splitCustomized(documents);
-
-        // 自动补充关键元信息
-        List<Document> enrichDocuments = myKeywordEnricher.enrichDocuments(documents);
-        simpleVectorStore.add(enrichDocuments);
-        return simpleVectorStore;
+        // 文档加载、增强、向量化放到后台执行，不阻塞应用启动
+        BackgroundIndexingVectorStore vectorStore = new BackgroundIndexingVectorStore("travelAppVectorStore", hnswVectorStore);
+        vectorStore.startIndexing(store -> {
+            IngestionCheckpoint checkpoint = IngestionCheckpoint.load(new File(CHECKPOINT_FILE), streamingDocumentIngestor.settings());
+            // 快照与断点配套使用，任一缺失或快照损坏都从头入库
+            if (checkpoint.isEmpty() || !loadSnapshot(hnswVectorStore)) {
+                checkpoint.clear();
+            }
+            // 按文件流式读取、增强、向量化，已完成且未变化的文件直接跳过
+            StreamingDocumentIngestor.IngestionResult result = streamingDocumentIngestor
+                    .task(store, travelAppDocumentLoader.listMarkdowns())
+                    .enrich(true)
+                    .checkpoint(checkpoint, () -> saveSnapshot(hnswVectorStore))
+                    .run();
+            if (result.files() == 0 && result.removedFiles() == 0) {
+                log.info("知识库文档未变化，直接使用快照中的向量库");
+            }
+            travelAppBm25Retriever.index(hnswVectorStore.getDocuments());
+        });
+        return vectorStore;
+    }
+
+    /**
+     * 加载上次保存的快照
+     *
+     * @return 是否成功加载
+     */
+    private boolean loadSnapshot(HnswVectorStore hnswVectorStore) {
+        File snapshotFile = new File(SNAPSHOT_FILE);
+        if (!snapshotFile.exists()) {
+            return false;
+        }
+        try {
+            hnswVectorStore.load(snapshotFile);
+            log.info("已从快照加载向量库: {}", snapshotFile);
+            return true;
+        } catch (Exception e) {
+            log.warn("加载向量库快照失败，重新构建向量库", e);
+            return false;
+        }
+    }
+
+    /**
+     * 保存向量库快照，先写临时文件再替换，避免中断时留下损坏的快照
+     *
+     * @return 是否保存成功
+     */
+    private boolean saveSnapshot(HnswVectorStore hnswVectorStore) {
+        try {
+            FileUtil.mkdir(SNAPSHOT_DIR);
+            File tempFile = new File(SNAPSHOT_FILE + ".tmp");
+            hnswVectorStore.save(tempFile);
+            FileUtil.move(tempFile, new File(SNAPSHOT_FILE), true);
+            return true;
+        } catch (Exception e) {
+            log.warn("保存向量库快照失败", e);
+            return false;
+        }
     }
 }
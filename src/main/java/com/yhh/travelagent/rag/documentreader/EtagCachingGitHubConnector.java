@@ -0,0 +1,219 @@
+package com.yhh.travelagent.rag.documentreader;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.connector.GitHubConnectorRequest;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Date 2025-07-30 10:10
+ * @ClassName: EtagCachingGitHubConnector
+ * @Description: 带 ETag 条件请求的 GitHub 连接器：GET 响应连同 ETag 缓存到磁盘，再次请求时携带 If-None-Match，
+ * 返回 304 时直接使用磁盘上的响应（304 不计入 GitHub 的请求额度）；网络不可用时退回缓存的响应
+ * 用法：new GitHubBuilder().withConnector(new EtagCachingGitHubConnector(GitHubConnector.DEFAULT, dir)).build()
+ */
+@Slf4j
+public class EtagCachingGitHubConnector implements GitHubConnector {
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_NOT_MODIFIED = 304;
+    // 缓存的响应体已解压，这些头不能原样返回
+    private static final List<String> DROPPED_HEADERS = List.of("content-encoding", "content-length", "transfer-encoding");
+
+    private final GitHubConnector delegate;
+    private final File directory;
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder offlineHits = new LongAdder();
+    private final LongAdder fetched = new LongAdder();
+
+    public EtagCachingGitHubConnector(GitHubConnector delegate, File directory) {
+        this.delegate = delegate;
+        this.directory = directory;
+        FileUtil.mkdir(directory);
+    }
+
+    @Override
+    public GitHubConnectorResponse send(GitHubConnectorRequest request) throws IOException {
+        if (!"GET".equals(request.method())) {
+            return delegate.send(request);
+        }
+        String key = cacheKey(request);
+        CachedResponse cached = read(key);
+        GitHubConnectorResponse response;
+        try {
+            response = delegate.send(cached == null ? request : new ConditionalRequest(request, cached.etag()));
+        } catch (IOException e) {
+            if (cached == null) {
+                throw e;
+            }
+            offlineHits.increment();
+            log.warn("GitHub 请求失败，使用本地缓存的响应: {}，原因: {}", request.url(), e.getMessage());
+            return new BytesResponse(request, HTTP_OK, cached.headers(), cached.body());
+        }
+        if (response.statusCode() == HTTP_NOT_MODIFIED && cached != null) {
+            response.close();
+            notModified.increment();
+            return new BytesResponse(request, HTTP_OK, cached.headers(), cached.body());
+        }
+        String etag = response.header("ETag");
+        if (response.statusCode() != HTTP_OK || etag == null) {
+            return response;
+        }
+        byte[] body;
+        try (InputStream in = response.bodyStream()) {
+            body = in.readAllBytes();
+        } finally {
+            response.close();
+        }
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        response.allHeaders().forEach((name, values) -> {
+            if (name != null && !DROPPED_HEADERS.contains(name.toLowerCase())) {
+                headers.put(name, values);
+            }
+        });
+        write(key, new CachedResponse(etag, headers, body));
+        fetched.increment();
+        return new BytesResponse(request, HTTP_OK, headers, body);
+    }
+
+    /**
+     * 条件请求统计
+     */
+    public ConnectorStats getStats() {
+        return new ConnectorStats(fetched.sum(), notModified.sum(), offlineHits.sum());
+    }
+
+    /**
+     * 同一地址、不同 Accept（如 JSON 与原始内容）的响应分别缓存
+     */
+    private static String cacheKey(GitHubConnectorRequest request) {
+        return SecureUtil.sha256(request.url() + "\n" + request.header("Accept"));
+    }
+
+    private CachedResponse read(String key) {
+        File metaFile = new File(directory, key + ".json");
+        File bodyFile = new File(directory, key + ".body");
+        if (!metaFile.isFile() || !bodyFile.isFile()) {
+            return null;
+        }
+        try {
+            JSONObject meta = JSONUtil.parseObj(FileUtil.readUtf8String(metaFile));
+            Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            meta.getJSONObject("headers").forEach((name, values) ->
+                    headers.put(name, JSONUtil.parseArray(values).toList(String.class)));
+            return new CachedResponse(meta.getStr("etag"), headers, FileUtil.readBytes(bodyFile));
+        } catch (Exception e) {
+            log.warn("读取 GitHub 响应缓存失败: {}", key, e);
+            return null;
+        }
+    }
+
+    private void write(String key, CachedResponse response) {
+        try {
+            // 先写响应体再写元信息，元信息存在即代表响应体完整
+            FileUtil.writeBytes(response.body(), new File(directory, key + ".body"));
+            JSONObject meta = JSONUtil.createObj()
+                    .set("etag", response.etag())
+                    .set("headers", new HashMap<>(response.headers()));
+            FileUtil.writeUtf8String(meta.toString(), new File(directory, key + ".json"));
+        } catch (Exception e) {
+            log.warn("写入 GitHub 响应缓存失败: {}", key, e);
+        }
+    }
+
+    private record CachedResponse(String etag, Map<String, List<String>> headers, byte[] body) {
+    }
+
+    /**
+     * 条件请求统计
+     *
+     * @param fetched     完整下载的响应数
+     * @param notModified 返回 304、直接使用缓存的响应数
+     * @param offlineHits 网络失败时使用缓存的响应数
+     */
+    public record ConnectorStats(long fetched, long notModified, long offlineHits) {
+    }
+
+    /**
+     * 在原请求上追加 If-None-Match 头
+     */
+    private static final class ConditionalRequest implements GitHubConnectorRequest {
+        private final GitHubConnectorRequest request;
+        private final Map<String, List<String>> headers;
+
+        private ConditionalRequest(GitHubConnectorRequest request, String etag) {
+            this.request = request;
+            this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            this.headers.putAll(request.allHeaders());
+            this.headers.put("If-None-Match", List.of(etag));
+        }
+
+        @Override
+        public String method() {
+            return request.method();
+        }
+
+        @Override
+        public Map<String, List<String>> allHeaders() {
+            return headers;
+        }
+
+        @Override
+        public String header(String name) {
+            List<String> values = headers.get(name);
+            return values == null || values.isEmpty() ? null : String.join(",", values);
+        }
+
+        @Override
+        public String contentType() {
+            return request.contentType();
+        }
+
+        @Override
+        public InputStream body() {
+            return request.body();
+        }
+
+        @Override
+        public URL url() {
+            return request.url();
+        }
+
+        @Override
+        public boolean hasBody() {
+            return request.hasBody();
+        }
+    }
+
+    /**
+     * 内存中的响应
+     */
+    static final class BytesResponse extends GitHubConnectorResponse.ByteArrayResponse {
+        private final byte[] body;
+
+        BytesResponse(GitHubConnectorRequest request, int statusCode, Map<String, List<String>> headers, byte[] body) {
+            super(request, statusCode, headers);
+            this.body = body;
+        }
+
+        @Override
+        protected InputStream rawBodyStream() {
+            return new ByteArrayInputStream(body);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.yhh.travelagent.rag.documentreader;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.crypto.SecureUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Date 2025-07-30 9:30
+ * @ClassName: GitHubBlobCache
+ * @Description: 按 Git blob SHA 寻址的本地文件缓存：内容相同的文件只下载一次，SHA 即内容校验，缓存永不过期
+ */
+@Slf4j
+public class GitHubBlobCache {
+
+    private final File directory;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public GitHubBlobCache(File directory) {
+        this.directory = directory;
+        FileUtil.mkdir(directory);
+    }
+
+    /**
+     * 读取缓存的文件内容，内容与 SHA 不一致（文件损坏）时删除并视为未命中
+     */
+    public Optional<byte[]> get(String sha) {
+        File file = blobFile(sha);
+        if (file.isFile()) {
+            byte[] content = FileUtil.readBytes(file);
+            if (sha.equals(gitBlobSha(content))) {
+                hits.increment();
+                return Optional.of(content);
+            }
+            log.warn("GitHub blob 缓存文件损坏，已删除: {}", file);
+            FileUtil.del(file);
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * 写入文件内容，内容与 SHA 不一致时不缓存
+     */
+    public void put(String sha, byte[] content) {
+        if (!sha.equals(gitBlobSha(content))) {
+            log.warn("GitHub blob 内容与 SHA 不一致，不写入缓存: {}", sha);
+            return;
+        }
+        File file = blobFile(sha);
+        if (file.isFile()) {
+            return;
+        }
+        // 先写临时文件再改名，并发写入同一 blob 时读到的总是完整内容
+        File tempFile = new File(file.getPath() + "." + Thread.currentThread().threadId() + ".tmp");
+        FileUtil.writeBytes(content, tempFile);
+        FileUtil.move(tempFile, file, true);
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum());
+    }
+
+    private File blobFile(String sha) {
+        // 按前两位分目录，避免单个目录下文件过多
+        return new File(new File(directory, sha.substring(0, 2)), sha);
+    }
+
+    /**
+     * 计算 Git blob SHA：sha1("blob " + 长度 + "\0" + 内容)，与 GitHub 返回的文件 SHA 一致
+     */
+    public static String gitBlobSha(byte[] content) {
+        byte[] header = ("blob " + content.length + "\0").getBytes(StandardCharsets.UTF_8);
+        byte[] data = new byte[header.length + content.length];
+        System.arraycopy(header, 0, data, 0, header.length);
+        System.arraycopy(content, 0, data, header.length, content.length);
+        return SecureUtil.sha1().digestHex(data);
+    }
+
+    /**
+     * 缓存命中统计
+     *
+     * @param hits   命中次数
+     * @param misses 未命中次数
+     */
+    public record CacheStats(long hits, long misses) {
+    }
+}
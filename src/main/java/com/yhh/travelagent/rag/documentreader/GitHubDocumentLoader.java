@@ -6,28 +6,48 @@ import lombok.extern.slf4j.Slf4j;
 import org.kohsuke.github.GHContent;
 import org.kohsuke.github.GHFileNotFoundException;
 import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GHTree;
+import org.kohsuke.github.GHTreeEntry;
 import org.kohsuke.github.GitHub;
 import org.springframework.ai.document.Document;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 /**
  * GitHub文档加载器
+ * 目录加载一次性拉取 Git 树，再按有限并发下载文件内容；同步时按文件 SHA 跳过未变化的文件
+ * 配置 {@link GitHubBlobCache} 后文件内容按 SHA 缓存到本地，重复加载不再下载
  * author: Eason
  */
 @Slf4j
 public class GitHubDocumentLoader {
 
+    private static final int DEFAULT_PARALLELISM = 8;
+
     private final GitHub gitHub;
     private final String owner;
     private final String repo;
     private final String branch;
+    // 同时下载的文件数量，避免触发 GitHub 的并发限制
+    private final int parallelism;
+    // 文件内容缓存，为 null 时不缓存
+    private final GitHubBlobCache blobCache;
     private String defaultBranch; // 缓存默认分支
+    private volatile GHRepository repository; // 缓存仓库对象，避免每次调用都请求仓库信息
 
     /**
      * 构造函数
@@ -38,13 +58,33 @@ public class GitHubDocumentLoader {
      * @param branch 分支名称
      */
     public GitHubDocumentLoader(GitHub gitHub, String owner, String repo, String branch) {
+        this(gitHub, owner, repo, branch, DEFAULT_PARALLELISM, null);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param gitHub      GitHub客户端实例
+     * @param owner       仓库所有者
+     * @param repo        仓库名称
+     * @param branch      分支名称
+     * @param parallelism 同时下载的文件数量
+     * @param blobCache   文件内容缓存，为 null 时不缓存
+     */
+    public GitHubDocumentLoader(GitHub gitHub, String owner, String repo, String branch, int parallelism,
+                                GitHubBlobCache blobCache) {
         Assert.notNull(gitHub, "GitHub实例不能为空");
         Assert.notNull(owner, "仓库所有者不能为空");
         Assert.notNull(repo, "仓库名称不能为空");
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("并发数必须大于0");
+        }
         this.gitHub = gitHub;
         this.owner = owner;
         this.repo = repo;
         this.branch = branch != null ? branch : "main";
+        this.parallelism = parallelism;
+        this.blobCache = blobCache;
     }
 
     /**
@@ -81,29 +121,146 @@ public class GitHubDocumentLoader {
      * @return Document列表
      */
     public List<Document> loadDocuments(String path) {
+        return syncDocuments(path, Map.of()).changedDocuments();
+    }
+
+    /**
+     * 增量同步目录下的文件：文件 SHA 与上次一致的文件不再下载
+     *
+     * @param path      目录路径
+     * @param knownShas 上次加载的文件路径 -> 文件 SHA，可由 {@link #knownShas(List)} 从上次的文档中提取
+     * @return 新增或变化的文档、已删除的文件路径
+     */
+    public SyncResult syncDocuments(String path, Map<String, String> knownShas) {
+        long start = System.currentTimeMillis();
+        String directory = normalizePath(path);
         try {
-            List<GHContent> contents = loadDirectoryContentWithBranchFallback(normalizePath(path));
-
-            return contents.stream()
-                    .flatMap(content -> {
-                        if (content.isFile()) {
-                            try {
-                                return Stream.of(createDocument(content));
-                            } catch (Exception e) {
-                                return Stream.empty();
-                            }
-                        } else if (content.isDirectory()) {
-                            return loadDocuments(content.getPath()).stream();
-                        }
-                        return Stream.empty();
-                    })
-                    .collect(Collectors.toList());
+            TreeListing listing = loadTreeWithBranchFallback();
+            if (listing.tree().isTruncated()) {
+                // 仓库过大时 GitHub 会截断递归树，退回按目录逐层遍历
+                log.warn("仓库 {}/{} 的文件树被截断，改为逐层遍历目录: {}", owner, repo, directory);
+                return syncByDirectoryWalk(directory, knownShas);
+            }
+            List<GHTreeEntry> files = listing.tree().getTree().stream()
+                    .filter(entry -> "blob".equals(entry.getType()))
+                    .filter(entry -> isUnder(entry.getPath(), directory))
+                    .toList();
+            List<GHTreeEntry> changed = files.stream()
+                    .filter(entry -> !entry.getSha().equals(knownShas.get(entry.getPath())))
+                    .toList();
+            List<Document> documents = download(changed, entry -> createDocument(entry, listing.branch()));
+            SyncResult result = new SyncResult(documents, deletedPaths(knownShas, directory, files.stream().map(GHTreeEntry::getPath)),
+                    files.size() - changed.size());
+            log.info("GitHub 仓库 {}/{} 目录 [{}] 同步完成，文件 {} 个，下载 {} 个，未变化 {} 个，已删除 {} 个，耗时 {} ms",
+                    owner, repo, directory, files.size(), documents.size(), result.unchangedFiles(),
+                    result.deletedPaths().size(), System.currentTimeMillis() - start);
+            return result;
         } catch (IOException e) {
             log.error("加载目录失败: {}", path);
             throw new RuntimeException("加载目录失败: " + path, e);
         }
     }
 
+    /**
+     * 从上次加载的文档中提取文件路径 -> 文件 SHA
+     */
+    public static Map<String, String> knownShas(List<Document> documents) {
+        return documents.stream()
+                .filter(document -> document.getMetadata().get("github_file_path") != null
+                        && document.getMetadata().get("github_file_sha") != null)
+                .collect(Collectors.toMap(
+                        document -> document.getMetadata().get("github_file_path").toString(),
+                        document -> document.getMetadata().get("github_file_sha").toString(),
+                        (a, b) -> a));
+    }
+
+    /**
+     * 文件树被截断时按目录逐层遍历，文件内容同样并发下载
+     */
+    private SyncResult syncByDirectoryWalk(String directory, Map<String, String> knownShas) throws IOException {
+        List<GHContent> files = new ArrayList<>();
+        collectFiles(directory, files);
+        List<GHContent> changed = files.stream()
+                .filter(content -> !content.getSha().equals(knownShas.get(content.getPath())))
+                .toList();
+        List<Document> documents = download(changed, this::createDocument);
+        return new SyncResult(documents, deletedPaths(knownShas, directory, files.stream().map(GHContent::getPath)),
+                files.size() - changed.size());
+    }
+
+    private void collectFiles(String path, List<GHContent> files) throws IOException {
+        for (GHContent content : loadDirectoryContentWithBranchFallback(path)) {
+            if (content.isFile()) {
+                files.add(content);
+            } else if (content.isDirectory()) {
+                collectFiles(content.getPath(), files);
+            }
+        }
+    }
+
+    /**
+     * 有限并发下载文件内容，保持原有顺序，单个文件失败时跳过
+     */
+    private <T> List<Document> download(List<T> files, ContentLoader<T> loader) {
+        List<CompletableFuture<Document>> futures = new ArrayList<>(files.size());
+        Semaphore permits = new Semaphore(parallelism);
+        // 下载是阻塞 IO，使用虚拟线程，并发数由信号量控制
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (T file : files) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        permits.acquire();
+                        try {
+                            return loader.load(file);
+                        } finally {
+                            permits.release();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return null;
+                    } catch (Exception e) {
+                        log.warn("下载文件失败，已跳过: {}", file instanceof GHTreeEntry entry ? entry.getPath() : file, e);
+                        return null;
+                    }
+                }, executor));
+            }
+        }
+        return futures.stream()
+                .map(CompletableFuture::join)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 上次存在于该目录下、本次已不存在的文件
+     */
+    private static List<String> deletedPaths(Map<String, String> knownShas, String directory, Stream<String> currentPaths) {
+        Set<String> current = currentPaths.collect(Collectors.toCollection(HashSet::new));
+        return knownShas.keySet().stream()
+                .filter(knownPath -> isUnder(knownPath, directory) && !current.contains(knownPath))
+                .sorted()
+                .toList();
+    }
+
+    private static boolean isUnder(String filePath, String directory) {
+        return directory.isEmpty() || filePath.equals(directory) || filePath.startsWith(directory + "/");
+    }
+
+    /**
+     * 拉取整个仓库的递归文件树（一次请求），指定分支不存在时回退到默认分支
+     */
+    private TreeListing loadTreeWithBranchFallback() throws IOException {
+        try {
+            return new TreeListing(branch, getRepository().getTreeRecursive(branch, 1));
+        } catch (GHFileNotFoundException e) {
+            String defaultBranch = getDefaultBranch();
+            if (!branch.equals(defaultBranch)) {
+                return new TreeListing(defaultBranch, getRepository().getTreeRecursive(defaultBranch, 1));
+            }
+            throw e;
+        }
+    }
+
     private Optional<GHContent> loadContentSafely(String path) {
         try {
             return Optional.of(loadContentWithBranchFallback(path));
@@ -134,7 +291,10 @@ public class GitHubDocumentLoader {
 
     private GHContent tryLoadContent(String path, String branchName) throws IOException {
         GHContent content = getRepository().getFileContent(path, branchName);
-        Assert.isTrue(content.isFile(), "路径必须指向文件");
+        // knife4j 的 Assert.isTrue 在条件为 true 时抛异常，这里直接判断
+        if (!content.isFile()) {
+            throw new IllegalArgumentException("路径必须指向文件");
+        }
         return content;
     }
 
@@ -211,7 +371,16 @@ public class GitHubDocumentLoader {
      * @throws IOException 如果获取失败
      */
     private GHRepository getRepository() throws IOException {
-        return gitHub.getRepository(owner + "/" + repo);
+        GHRepository current = repository;
+        if (current == null) {
+            synchronized (this) {
+                if (repository == null) {
+                    repository = gitHub.getRepository(owner + "/" + repo);
+                }
+                current = repository;
+            }
+        }
+        return current;
     }
 
     /**
@@ -222,8 +391,18 @@ public class GitHubDocumentLoader {
      * @throws IOException 如果读取失败
      */
     private Document createDocument(GHContent content) throws IOException {
+        Optional<byte[]> cached = blobCache == null ? Optional.empty() : blobCache.get(content.getSha());
+        String text;
+        if (cached.isPresent()) {
+            text = new String(cached.get(), StandardCharsets.UTF_8);
+        } else {
+            text = content.getContent();
+            if (blobCache != null) {
+                blobCache.put(content.getSha(), text.getBytes(StandardCharsets.UTF_8));
+            }
+        }
         return new Document(
-                content.getContent(),
+                text,
                 Map.of(
                         "github_file_name", content.getName(),
                         "github_file_path", content.getPath(),
@@ -233,6 +412,75 @@ public class GitHubDocumentLoader {
         );
     }
 
+    /**
+     * 从 Git 树条目创建Document对象，内容通过 blob 接口下载
+     *
+     * @param entry      Git 树中的文件条目
+     * @param branchName 实际使用的分支
+     * @return Document对象
+     * @throws IOException 如果读取失败
+     */
+    private Document createDocument(GHTreeEntry entry, String branchName) throws IOException {
+        String content = readBlob(entry.getSha());
+        String path = entry.getPath();
+        String htmlUrl = Optional.ofNullable(getRepository().getHtmlUrl())
+                .map(url -> url + "/blob/" + branchName + "/" + path)
+                .orElse("");
+        return new Document(
+                content,
+                Map.of(
+                        "github_file_name", path.substring(path.lastIndexOf('/') + 1),
+                        "github_file_path", path,
+                        "github_file_sha", entry.getSha(),
+                        "github_html_url", htmlUrl
+                )
+        );
+    }
+
+    /**
+     * 读取文件内容，优先使用本地缓存
+     */
+    private String readBlob(String sha) throws IOException {
+        if (blobCache != null) {
+            Optional<byte[]> cached = blobCache.get(sha);
+            if (cached.isPresent()) {
+                return new String(cached.get(), StandardCharsets.UTF_8);
+            }
+        }
+        byte[] bytes;
+        try (InputStream in = getRepository().readBlob(sha)) {
+            bytes = in.readAllBytes();
+        }
+        if (blobCache != null) {
+            blobCache.put(sha, bytes);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 下载单个文件内容
+     */
+    @FunctionalInterface
+    private interface ContentLoader<T> {
+        Document load(T file) throws IOException;
+    }
+
+    /**
+     * 递归文件树及其所在分支
+     */
+    private record TreeListing(String branch, GHTree tree) {
+    }
+
+    /**
+     * 增量同步结果
+     *
+     * @param changedDocuments 新增或内容变化的文件文档
+     * @param deletedPaths     上次存在、本次已删除的文件路径
+     * @param unchangedFiles   SHA 未变化而跳过下载的文件数
+     */
+    public record SyncResult(List<Document> changedDocuments, List<String> deletedPaths, int unchangedFiles) {
+    }
+
     /**
      * 构建器类
      */
@@ -241,6 +489,8 @@ public class GitHubDocumentLoader {
         private String owner;
         private String repo;
         private String branch;
+        private int parallelism = DEFAULT_PARALLELISM;
+        private GitHubBlobCache blobCache;
 
         /**
          * 设置GitHub客户端实例
@@ -286,13 +536,35 @@ public class GitHubDocumentLoader {
             return this;
         }
 
+        /**
+         * 设置同时下载的文件数量
+         *
+         * @param parallelism 并发数
+         * @return Builder实例
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * 设置文件内容缓存
+         *
+         * @param blobCache 按 SHA 寻址的本地缓存
+         * @return Builder实例
+         */
+        public Builder blobCache(GitHubBlobCache blobCache) {
+            this.blobCache = blobCache;
+            return this;
+        }
+
         /**
          * 构建GitHubDocumentLoader实例
          *
          * @return GitHubDocumentLoader实例
          */
         public GitHubDocumentLoader build() {
-            return new GitHubDocumentLoader(gitHub, owner, repo, branch);
+            return new GitHubDocumentLoader(gitHub, owner, repo, branch, parallelism, blobCache);
         }
     }
 }
@@ -0,0 +1,161 @@
+package com.yhh.travelagent.rag.retrieval;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * @Date 2025-07-26 10:00
+ * @ClassName: Bm25DocumentRetriever
+ * @Description: 基于倒排索引的 BM25 关键词检索器，中文按二元组切词，弥补向量检索对地名、专有名词等精确匹配的不足
+ */
+@Slf4j
+public class Bm25DocumentRetriever implements DocumentRetriever {
+
+    // MyKeywordEnricher 写入的关键词元信息
+    private static final String KEYWORDS_METADATA_KEY = "excerpt_keywords";
+    // 关键词在文档中额外重复的次数，提高关键词命中的权重
+    private static final int KEYWORD_BOOST = 2;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final int topK;
+    // 索引整体替换，检索时读到的总是完整的一份
+    private volatile Index index = Index.EMPTY;
+
+    public Bm25DocumentRetriever(int topK) {
+        this.topK = topK;
+    }
+
+    /**
+     * 用给定文档重建索引
+     */
+    public void index(List<Document> documents) {
+        long start = System.currentTimeMillis();
+        Map<String, List<Posting>> postings = new HashMap<>();
+        int[] lengths = new int[documents.size()];
+        long totalLength = 0;
+        for (int i = 0; i < documents.size(); i++) {
+            List<String> terms = documentTerms(documents.get(i));
+            lengths[i] = terms.size();
+            totalLength += terms.size();
+            Map<String, Integer> frequencies = new HashMap<>();
+            terms.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+            int docIndex = i;
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, key -> new ArrayList<>()).add(new Posting(docIndex, frequency)));
+        }
+        double averageLength = documents.isEmpty() ? 0 : (double) totalLength / documents.size();
+        index = new Index(List.copyOf(documents), postings, lengths, averageLength);
+        log.info("BM25 索引构建完成，文档数: {}，词项数: {}，耗时: {} ms",
+                documents.size(), postings.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public List<Document> retrieve(Query query) {
+        Index current = index;
+        if (current.documents().isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, Double> scores = new HashMap<>();
+        for (String term : tokenize(query.text()).stream().distinct().toList()) {
+            List<Posting> termPostings = current.postings().get(term);
+            if (termPostings == null) {
+                continue;
+            }
+            int n = current.documents().size();
+            double idf = Math.log(1 + (n - termPostings.size() + 0.5) / (termPostings.size() + 0.5));
+            for (Posting posting : termPostings) {
+                double lengthNorm = 1 - B + B * current.lengths()[posting.document()] / current.averageLength();
+                double score = idf * posting.frequency() * (K1 + 1) / (posting.frequency() + K1 * lengthNorm);
+                scores.merge(posting.document(), score, Double::sum);
+            }
+        }
+        PriorityQueue<Map.Entry<Integer, Double>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            top.add(entry);
+            if (top.size() > topK) {
+                top.poll();
+            }
+        }
+        List<Map.Entry<Integer, Double>> sorted = new ArrayList<>(top);
+        sorted.sort(Map.Entry.<Integer, Double>comparingByValue(Comparator.reverseOrder()));
+        return sorted.stream()
+                .map(entry -> current.documents().get(entry.getKey()).mutate().score(entry.getValue()).build())
+                .toList();
+    }
+
+    /**
+     * 文档的词项：正文 + 加权的关键词元信息
+     */
+    private List<String> documentTerms(Document document) {
+        List<String> terms = new ArrayList<>(tokenize(document.getText()));
+        Object keywords = document.getMetadata().get(KEYWORDS_METADATA_KEY);
+        if (keywords != null) {
+            List<String> keywordTerms = tokenize(keywords.toString());
+            for (int i = 0; i < KEYWORD_BOOST; i++) {
+                terms.addAll(keywordTerms);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 切词：连续的汉字输出相邻二元组（单个汉字输出本身），字母数字按单词输出并转小写，其余字符作为分隔符
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            int codePoint = text.codePointAt(i);
+            if (isHan(codePoint)) {
+                int start = i;
+                while (i < length && isHan(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                }
+                String run = text.substring(start, i);
+                int[] chars = run.codePoints().toArray();
+                if (chars.length == 1) {
+                    tokens.add(run);
+                }
+                for (int j = 0; j + 1 < chars.length; j++) {
+                    tokens.add(new String(chars, j, 2));
+                }
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(text.codePointAt(i)) && !isHan(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                }
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+            } else {
+                i += Character.charCount(codePoint);
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isHan(int codePoint) {
+        return Character.UnicodeScript.of(codePoint) == Character.UnicodeScript.HAN;
+    }
+
+    private record Posting(int document, int frequency) {
+    }
+
+    private record Index(List<Document> documents, Map<String, List<Posting>> postings, int[] lengths,
+                         double averageLength) {
+        static final Index EMPTY = new Index(List.of(), Map.of(), new int[0], 0);
+    }
+}
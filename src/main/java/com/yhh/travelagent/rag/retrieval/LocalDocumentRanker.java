@@ -0,0 +1,139 @@
+package com.yhh.travelagent.rag.retrieval;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.postretrieval.ranking.DocumentRanker;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @Date 2025-07-27 9:40
+ * @ClassName: LocalDocumentRanker
+ * @Description: 本地轻量重排：综合检索分数、词项重合度、关键词元信息命中计算相关度，再用 MMR 去掉内容重复的切片
+ * 不调用模型，耗时在毫秒级
+ */
+public class LocalDocumentRanker implements DocumentRanker {
+
+    // 参与匹配的元信息：MyKeywordEnricher 生成的关键词、来源文件名
+    private static final List<String> MATCH_METADATA_KEYS = List.of("excerpt_keywords", "filename");
+
+    private static final double RETRIEVAL_WEIGHT = 0.4;
+    private static final double OVERLAP_WEIGHT = 0.4;
+    private static final double METADATA_WEIGHT = 0.2;
+    // MMR 中相关度的权重，越小越强调多样性
+    private static final double DEFAULT_MMR_LAMBDA = 0.7;
+
+    private final int topN;
+    private final double mmrLambda;
+
+    public LocalDocumentRanker(int topN) {
+        this(topN, DEFAULT_MMR_LAMBDA);
+    }
+
+    public LocalDocumentRanker(int topN, double mmrLambda) {
+        this.topN = topN;
+        this.mmrLambda = mmrLambda;
+    }
+
+    @Override
+    public List<Document> rank(Query query, List<Document> documents) {
+        if (documents.size() <= 1) {
+            return documents;
+        }
+        Set<String> queryTerms = new HashSet<>(Bm25DocumentRetriever.tokenize(query.text()));
+        List<Candidate> candidates = new ArrayList<>(documents.size());
+        double minScore = Double.MAX_VALUE;
+        double maxScore = -Double.MAX_VALUE;
+        for (Document document : documents) {
+            double score = document.getScore() == null ? 0 : document.getScore();
+            minScore = Math.min(minScore, score);
+            maxScore = Math.max(maxScore, score);
+        }
+        for (Document document : documents) {
+            Set<String> terms = new HashSet<>(Bm25DocumentRetriever.tokenize(document.getText()));
+            // 不同检索器的分数量纲不同，先在候选集内归一化
+            double retrievalScore = maxScore > minScore && document.getScore() != null
+                    ? (document.getScore() - minScore) / (maxScore - minScore)
+                    : 1;
+            double relevance = RETRIEVAL_WEIGHT * retrievalScore
+                    + OVERLAP_WEIGHT * coverage(queryTerms, terms)
+                    + METADATA_WEIGHT * coverage(queryTerms, metadataTerms(document));
+            candidates.add(new Candidate(document, terms, relevance));
+        }
+        return selectByMmr(candidates);
+    }
+
+    /**
+     * 最大边际相关（MMR）：每次选出“相关度高且与已选切片不重复”的候选
+     */
+    private List<Document> selectByMmr(List<Candidate> candidates) {
+        List<Candidate> remaining = new ArrayList<>(candidates);
+        List<Candidate> selected = new ArrayList<>();
+        while (selected.size() < topN && !remaining.isEmpty()) {
+            Candidate best = null;
+            double bestScore = -Double.MAX_VALUE;
+            for (Candidate candidate : remaining) {
+                double redundancy = 0;
+                for (Candidate chosen : selected) {
+                    redundancy = Math.max(redundancy, jaccard(candidate.terms(), chosen.terms()));
+                }
+                double score = mmrLambda * candidate.relevance() - (1 - mmrLambda) * redundancy;
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = candidate;
+                }
+            }
+            selected.add(best);
+            remaining.remove(best);
+        }
+        return selected.stream().map(Candidate::document).toList();
+    }
+
+    private Set<String> metadataTerms(Document document) {
+        Set<String> terms = new HashSet<>();
+        for (String key : MATCH_METADATA_KEYS) {
+            Object value = document.getMetadata().get(key);
+            if (value != null) {
+                terms.addAll(Bm25DocumentRetriever.tokenize(value.toString()));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 查询词项被覆盖的比例
+     */
+    private static double coverage(Set<String> queryTerms, Set<String> terms) {
+        if (queryTerms.isEmpty()) {
+            return 0;
+        }
+        int matched = 0;
+        for (String term : queryTerms) {
+            if (terms.contains(term)) {
+                matched++;
+            }
+        }
+        return (double) matched / queryTerms.size();
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() && b.isEmpty()) {
+            return 0;
+        }
+        int intersection = 0;
+        Set<String> smaller = a.size() <= b.size() ? a : b;
+        Set<String> larger = smaller == a ? b : a;
+        for (String term : smaller) {
+            if (larger.contains(term)) {
+                intersection++;
+            }
+        }
+        return (double) intersection / (a.size() + b.size() - intersection);
+    }
+
+    private record Candidate(Document document, Set<String> terms, double relevance) {
+    }
+}
@@ -0,0 +1,162 @@
+package com.yhh.travelagent.rag.retrieval;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.preretrieval.query.expansion.QueryExpander;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @Date 2025-07-28 9:50
+ * @ClassName: ParallelMultiQueryDocumentRetriever
+ * @Description: 并行多查询检索：原始查询立即在所有检索源上检索，同时并行生成扩展查询，
+ * 扩展查询一生成就继续检索，最后按 RRF 合并去重。扩展查询依赖大模型调用，不在关键路径上：
+ * 原始查询检索完成后只再等待一小段宽限时间，合并届时已返回的扩展检索结果，其余丢弃
+ */
+@Slf4j
+public class ParallelMultiQueryDocumentRetriever implements DocumentRetriever {
+
+    private static final int RANK_CONSTANT = 60;
+
+    private final List<DocumentRetriever> retrievers;
+    private final List<QueryExpander> expanders;
+    private final Executor executor;
+    private final Duration timeout;
+    private final Duration expansionGrace;
+    private final int topK;
+
+    /**
+     * @param retrievers 检索源（不同的向量库、云知识库等）
+     * @param expanders  查询扩展器（查询重写、多查询扩展等），每个扩展器并行执行
+     * @param executor   执行检索和扩展的线程池
+     * @param timeout        原始查询检索的最长等待时间，超时未完成的检索被丢弃
+     * @param expansionGrace 原始查询检索完成后等待扩展查询检索的时间
+     * @param topK           合并后返回的文档数量
+     */
+    public ParallelMultiQueryDocumentRetriever(List<DocumentRetriever> retrievers, List<QueryExpander> expanders,
+                                               Executor executor, Duration timeout, Duration expansionGrace, int topK) {
+        this.retrievers = List.copyOf(retrievers);
+        this.expanders = List.copyOf(expanders);
+        this.executor = executor;
+        this.timeout = timeout;
+        this.expansionGrace = expansionGrace;
+        this.topK = topK;
+    }
+
+    @Override
+    public List<Document> retrieve(Query query) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        // 原始查询不等扩展，立即检索
+        List<CompletableFuture<List<Document>>> originalSearches = searchAll(query);
+        // 扩展查询生成后立即在所有检索源上检索；结果合并后不再发起新的检索
+        Queue<CompletableFuture<List<Document>>> expandedSearches = new ConcurrentLinkedQueue<>();
+        AtomicBoolean fused = new AtomicBoolean();
+        List<CompletableFuture<Void>> expansions = expanders.stream()
+                .map(expander -> CompletableFuture.supplyAsync(() -> expander.expand(query), executor)
+                        .thenAccept(queries -> queries.stream()
+                                .filter(expanded -> !fused.get() && !expanded.text().equals(query.text()))
+                                .forEach(expanded -> expandedSearches.addAll(searchAll(expanded)))))
+                .toList();
+
+        List<List<Document>> resultLists = new ArrayList<>();
+        for (CompletableFuture<List<Document>> search : originalSearches) {
+            List<Document> results = await(search, deadline, "原始查询检索");
+            if (results != null) {
+                resultLists.add(results);
+            }
+        }
+        // 原始查询检索完成后，扩展查询及其检索只再等待宽限时间
+        long graceDeadline = Math.min(deadline, System.nanoTime() + expansionGrace.toNanos());
+        awaitQuietly(CompletableFuture.allOf(expansions.toArray(new CompletableFuture[0])), graceDeadline);
+        awaitQuietly(CompletableFuture.allOf(expandedSearches.toArray(new CompletableFuture[0])), graceDeadline);
+        fused.set(true);
+        int used = 0;
+        for (CompletableFuture<List<Document>> search : expandedSearches) {
+            List<Document> results = search.getNow(null);
+            if (results != null) {
+                resultLists.add(results);
+                used++;
+            }
+        }
+        log.debug("扩展查询检索在宽限时间内完成 {}/{} 路", used, expandedSearches.size());
+        return fuse(resultLists);
+    }
+
+    private List<CompletableFuture<List<Document>>> searchAll(Query query) {
+        return retrievers.stream()
+                .map(retriever -> CompletableFuture.supplyAsync(() -> retriever.retrieve(query), executor)
+                        // 单个检索源失败不影响其他检索源
+                        .exceptionally(e -> {
+                            log.warn("检索失败，忽略该检索源: {}", e.getMessage());
+                            return List.of();
+                        }))
+                .toList();
+    }
+
+    /**
+     * 等待到截止时间，超时或失败都不影响已完成的部分
+     */
+    private static void awaitQuietly(CompletableFuture<?> future, long deadline) {
+        try {
+            future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // 未完成或失败的扩展查询直接丢弃
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> future, long deadline, String stage) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("{}超时，跳过未完成的部分", stage);
+            future.cancel(true);
+        } catch (ExecutionException e) {
+            log.warn("{}失败: {}", stage, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * 按 RRF 合并多路结果，ID 或正文相同的文档视为同一文档
+     */
+    private List<Document> fuse(List<List<Document>> resultLists) {
+        Map<String, Double> scores = new HashMap<>();
+        Map<String, Document> documents = new LinkedHashMap<>();
+        Map<String, String> textToKey = new HashMap<>();
+        for (List<Document> results : resultLists) {
+            for (int rank = 0; rank < results.size(); rank++) {
+                Document document = results.get(rank);
+                String key = document.getText() == null
+                        ? document.getId()
+                        : textToKey.computeIfAbsent(document.getText(), text -> document.getId());
+                scores.merge(key, 1.0 / (RANK_CONSTANT + rank + 1), Double::sum);
+                documents.putIfAbsent(key, document);
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(topK)
+                .map(entry -> documents.get(entry.getKey()).mutate().score(entry.getValue()).build())
+                .toList();
+    }
+}
@@ -0,0 +1,30 @@
+package com.yhh.travelagent.rag.retrieval;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.postretrieval.ranking.DocumentRanker;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
+
+import java.util.List;
+
+/**
+ * @Date 2025-07-27 10:30
+ * @ClassName: RerankingDocumentRetriever
+ * @Description: 检索后重排的检索器包装：被包装的检索器多召回一些候选，由重排器挑出最好的几条
+ * 当前版本的 RetrievalAugmentationAdvisor 没有检索后处理的扩展点，因此以检索器装饰的方式接入
+ */
+public class RerankingDocumentRetriever implements DocumentRetriever {
+
+    private final DocumentRetriever delegate;
+    private final DocumentRanker ranker;
+
+    public RerankingDocumentRetriever(DocumentRetriever delegate, DocumentRanker ranker) {
+        this.delegate = delegate;
+        this.ranker = ranker;
+    }
+
+    @Override
+    public List<Document> retrieve(Query query) {
+        return ranker.rank(query, delegate.retrieve(query));
+    }
+}
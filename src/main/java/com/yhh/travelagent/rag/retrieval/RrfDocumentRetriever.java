@@ -0,0 +1,67 @@
+package com.yhh.travelagent.rag.retrieval;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Date 2025-07-26 11:20
+ * @ClassName: RrfDocumentRetriever
+ * @Description: 倒数排名融合（RRF）检索器：合并多个检索器的结果，只看名次不看分数，不同检索器的分数无需归一化
+ */
+public class RrfDocumentRetriever implements DocumentRetriever {
+
+    /**
+     * 写入融合分数的元信息键
+     */
+    public static final String RRF_SCORE_METADATA_KEY = "rrf_score";
+
+    // 常用的平滑常数，削弱排名靠前文档的绝对优势
+    private static final int DEFAULT_RANK_CONSTANT = 60;
+
+    private final List<DocumentRetriever> retrievers;
+    private final int topK;
+    private final int rankConstant;
+
+    public RrfDocumentRetriever(List<DocumentRetriever> retrievers, int topK) {
+        this(retrievers, topK, DEFAULT_RANK_CONSTANT);
+    }
+
+    public RrfDocumentRetriever(List<DocumentRetriever> retrievers, int topK, int rankConstant) {
+        this.retrievers = List.copyOf(retrievers);
+        this.topK = topK;
+        this.rankConstant = rankConstant;
+    }
+
+    @Override
+    public List<Document> retrieve(Query query) {
+        Map<String, Double> scores = new HashMap<>();
+        Map<String, Document> documents = new LinkedHashMap<>();
+        for (DocumentRetriever retriever : retrievers) {
+            List<Document> results = retriever.retrieve(query);
+            for (int rank = 0; rank < results.size(); rank++) {
+                Document document = results.get(rank);
+                scores.merge(document.getId(), 1.0 / (rankConstant + rank + 1), Double::sum);
+                documents.putIfAbsent(document.getId(), document);
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(topK)
+                .map(entry -> withScore(documents.get(entry.getKey()), entry.getValue()))
+                .toList();
+    }
+
+    private Document withScore(Document document, double score) {
+        // mutate() 共享原文档的元信息 Map，复制后再写入，避免修改检索器内部的文档
+        Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+        metadata.put(RRF_SCORE_METADATA_KEY, score);
+        return document.mutate().metadata(metadata).score(score).build();
+    }
+}
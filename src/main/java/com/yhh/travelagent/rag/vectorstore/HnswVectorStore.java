@@ -0,0 +1,781 @@
+package com.yhh.travelagent.rag.vectorstore;
+
+import cn.hutool.json.JSONUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.embedding.TokenCountBatchingStrategy;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @Date 2025-07-23 10:05
+ * @ClassName: HnswVectorStore
+ * @Description: 基于 HNSW 图的内存向量库，检索复杂度近似对数级，代替 SimpleVectorStore 的全量余弦扫描
+ * 向量存放在堆外连续内存中，元信息存放在紧凑的元信息表中，文档内容和邻居关系存放在堆上的节点表中，三者下标一一对应
+ * 开启 int8 量化后，建图和图遍历使用量化向量，最终候选再用原始向量精确重排
+ * 常用的元信息键维护位图索引，带过滤条件的检索先用位图圈定候选，候选较少时直接精确扫描
+ */
+@Slf4j
+public class HnswVectorStore implements VectorStore {
+
+    private static final int SNAPSHOT_MAGIC = 0x484E5357;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final EmbeddingModel embeddingModel;
+    // 每个节点在上层的最大邻居数，第 0 层为 2 倍
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    // 写入、删除独占，检索共享
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Node> nodes = new ArrayList<>();
+    private final OffHeapVectorStorage vectors = new OffHeapVectorStorage();
+    private final MetadataTable metadataTable = new MetadataTable();
+    // 量化向量，未开启量化时为 null
+    private final Int8VectorStorage quantizedVectors;
+    private final Map<String, Integer> idToNode = new HashMap<>();
+    private final MetadataBitmapIndex metadataIndex;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int deletedCount;
+
+    private HnswVectorStore(Builder builder) {
+        this.embeddingModel = builder.embeddingModel;
+        this.m = builder.m;
+        this.efConstruction = builder.efConstruction;
+        this.efSearch = builder.efSearch;
+        this.levelMultiplier = 1 / Math.log(builder.m);
+        this.quantizedVectors = builder.quantized ? new Int8VectorStorage() : null;
+        this.metadataIndex = new MetadataBitmapIndex(builder.indexedMetadataKeys);
+        log.info("初始化 HNSW 向量库，M: {}，efConstruction: {}，efSearch: {}，int8 量化: {}，元信息索引: {}",
+                m, efConstruction, efSearch, builder.quantized, builder.indexedMetadataKeys);
+    }
+
+    public static Builder builder(EmbeddingModel embeddingModel) {
+        return new Builder(embeddingModel);
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        // 向量化耗时较长，放在锁外执行
+        List<float[]> embeddings = embeddingModel.embed(documents, EmbeddingOptionsBuilder.builder().build(),
+                new TokenCountBatchingStrategy());
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+                // 相同ID的文档视为更新，旧节点标记删除
+                markDeleted(document.getId());
+                insert(document.getId(), document.getText(), document.getMetadata(), normalize(embeddings.get(i)));
+            }
+            // 已删除节点过多时重建图，避免检索时绕路
+            if (deletedCount > nodes.size() / 2) {
+                rebuild();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            idList.forEach(this::markDeleted);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        lock.writeLock().lock();
+        try {
+            SearchFilter filter = toFilter(filterExpression);
+            List<String> ids = new ArrayList<>();
+            for (int i = nextCandidate(filter, 0); i >= 0; i = nextCandidate(filter, i + 1)) {
+                if (isLive(i, filter)) {
+                    ids.add(nodes.get(i).id);
+                }
+            }
+            ids.forEach(this::markDeleted);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        float[] query = normalize(embeddingModel.embed(request.getQuery()));
+        lock.readLock().lock();
+        try {
+            List<Candidate> hits = search(query, request.getTopK(),
+                    request.hasFilterExpression() ? toFilter(request.getFilterExpression()) : null);
+            List<Document> documents = new ArrayList<>(hits.size());
+            for (Candidate hit : hits) {
+                if (hit.score() < request.getSimilarityThreshold()) {
+                    break;
+                }
+                documents.add(toDocument(hit.node(), hit.score()));
+            }
+            return documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 当前有效的文档数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size() - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取全部有效文档（不含向量），用于构建其他检索索引
+     */
+    public List<Document> getDocuments() {
+        lock.readLock().lock();
+        try {
+            List<Document> documents = new ArrayList<>(nodes.size() - deletedCount);
+            for (int i = 0; i < nodes.size(); i++) {
+                Node node = nodes.get(i);
+                if (!node.deleted) {
+                    documents.add(Document.builder().id(node.id).text(node.text)
+                            .metadata(new HashMap<>(metadataTable.get(i))).build());
+                }
+            }
+            return documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 原始向量占用的堆外内存字节数
+     */
+    public long vectorMemoryBytes() {
+        lock.readLock().lock();
+        try {
+            return vectors.allocatedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 量化向量占用的堆外内存字节数，未开启量化时为 0
+     */
+    public long quantizedVectorMemoryBytes() {
+        lock.readLock().lock();
+        try {
+            return quantizedVectors == null ? 0 : quantizedVectors.allocatedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 把图结构和文档保存为二进制快照，加载时无需重新建图
+     */
+    public void save(File file) {
+        lock.readLock().lock();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(m);
+            out.writeInt(nodes.size());
+            out.writeInt(entryPoint);
+            out.writeInt(maxLevel);
+            for (int n = 0; n < nodes.size(); n++) {
+                Node node = nodes.get(n);
+                writeString(out, node.id);
+                writeString(out, node.text);
+                writeString(out, JSONUtil.toJsonStr(new HashMap<>(metadataTable.get(n))));
+                out.writeBoolean(node.deleted);
+                float[] vector = vectors.get(n);
+                out.writeInt(vector.length);
+                for (float v : vector) {
+                    out.writeFloat(v);
+                }
+                out.writeInt(node.neighbors.length);
+                for (int level = 0; level < node.neighbors.length; level++) {
+                    out.writeInt(node.neighborCounts[level]);
+                    for (int i = 0; i < node.neighborCounts[level]; i++) {
+                        out.writeInt(node.neighbors[level][i]);
+                    }
+                }
+            }
+            log.info("HNSW 向量库快照已保存: {}，节点数: {}", file, nodes.size());
+        } catch (IOException e) {
+            throw new RuntimeException("保存 HNSW 向量库快照失败: " + file, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 从二进制快照加载图结构和文档，覆盖当前内容
+     */
+    public void load(File file) {
+        lock.writeLock().lock();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IllegalStateException("不是有效的 HNSW 向量库快照: " + file);
+            }
+            if (in.readInt() != m) {
+                throw new IllegalStateException("快照的 M 参数与当前配置不一致: " + file);
+            }
+            int size = in.readInt();
+            List<Node> loaded = new ArrayList<>(size);
+            List<Map<String, Object>> loadedMetadata = new ArrayList<>(size);
+            List<float[]> loadedVectors = new ArrayList<>(size);
+            int loadedEntryPoint = in.readInt();
+            int loadedMaxLevel = in.readInt();
+            for (int n = 0; n < size; n++) {
+                String id = readString(in);
+                String text = readString(in);
+                Map<String, Object> metadata = new HashMap<>(JSONUtil.parseObj(readString(in)));
+                boolean deleted = in.readBoolean();
+                float[] vector = new float[in.readInt()];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = in.readFloat();
+                }
+                loadedVectors.add(vector);
+                loadedMetadata.add(metadata);
+                Node node = new Node(id, text, in.readInt() - 1);
+                node.deleted = deleted;
+                for (int level = 0; level < node.neighbors.length; level++) {
+                    node.neighborCounts[level] = in.readInt();
+                    for (int i = 0; i < node.neighborCounts[level]; i++) {
+                        node.neighbors[level][i] = in.readInt();
+                    }
+                }
+                loaded.add(node);
+            }
+            nodes.clear();
+            idToNode.clear();
+            vectors.clear();
+            if (quantizedVectors != null) {
+                quantizedVectors.clear();
+            }
+            metadataIndex.clear();
+            metadataTable.clear();
+            nodes.addAll(loaded);
+            loadedMetadata.forEach(metadataTable::add);
+            loadedVectors.forEach(this::addVector);
+            deletedCount = 0;
+            for (int i = 0; i < nodes.size(); i++) {
+                if (nodes.get(i).deleted) {
+                    deletedCount++;
+                } else {
+                    idToNode.put(nodes.get(i).id, i);
+                    metadataIndex.add(i, metadataTable.get(i));
+                }
+            }
+            entryPoint = loadedEntryPoint;
+            maxLevel = loadedMaxLevel;
+            log.info("HNSW 向量库快照已加载: {}，节点数: {}", file, nodes.size());
+        } catch (IOException e) {
+            throw new RuntimeException("加载 HNSW 向量库快照失败: " + file, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void markDeleted(String id) {
+        Integer index = idToNode.remove(id);
+        if (index != null) {
+            Node node = nodes.get(index);
+            node.deleted = true;
+            metadataIndex.remove(index, metadataTable.get(index));
+            deletedCount++;
+        }
+    }
+
+    /**
+     * 用有效节点重新建图（不需要重新向量化）
+     */
+    private void rebuild() {
+        List<Node> live = new ArrayList<>();
+        List<Map<String, Object>> liveMetadata = new ArrayList<>();
+        List<float[]> liveVectors = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            if (!nodes.get(i).deleted) {
+                live.add(nodes.get(i));
+                // 行视图不依赖表本身，清空后仍可读取
+                liveMetadata.add(metadataTable.get(i));
+                liveVectors.add(vectors.get(i));
+            }
+        }
+        log.info("HNSW 向量库重建，有效节点: {}，已删除节点: {}", live.size(), deletedCount);
+        nodes.clear();
+        idToNode.clear();
+        metadataIndex.clear();
+        metadataTable.clear();
+        vectors.clear();
+        if (quantizedVectors != null) {
+            quantizedVectors.clear();
+        }
+        entryPoint = -1;
+        maxLevel = -1;
+        deletedCount = 0;
+        for (int i = 0; i < live.size(); i++) {
+            Node node = live.get(i);
+            insert(node.id, node.text, liveMetadata.get(i), liveVectors.get(i));
+        }
+    }
+
+    /**
+     * 插入节点：从顶层贪心下降，在每一层用 efConstruction 宽度搜索邻居并双向连接
+     */
+    private void insert(String id, String text, Map<String, Object> metadata, float[] vector) {
+        QueryVector query = toQuery(vector);
+        int level = randomLevel();
+        int nodeId = nodes.size();
+        nodes.add(new Node(id, text, level));
+        metadataTable.add(metadata);
+        addVector(vector);
+        idToNode.put(id, nodeId);
+        metadataIndex.add(nodeId, metadataTable.get(nodeId));
+        if (entryPoint < 0) {
+            entryPoint = nodeId;
+            maxLevel = level;
+            return;
+        }
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedySearch(query, current, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(query, current, efConstruction, l);
+            for (int neighbor : selectNeighbors(candidates, m)) {
+                connect(nodeId, neighbor, l);
+                connect(neighbor, nodeId, l);
+            }
+            current = candidates.get(0).node();
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = nodeId;
+        }
+    }
+
+    /**
+     * 检索最相似的 topK 个节点；过滤条件或已删除节点导致结果不足时退化为精确扫描
+     *
+     * @param filter 过滤条件，为 null 时不过滤
+     */
+    private List<Candidate> search(float[] vector, int topK, SearchFilter filter) {
+        if (entryPoint < 0) {
+            return List.of();
+        }
+        int ef = Math.max(efSearch, topK);
+        if (filter != null && filter.candidates() != null) {
+            int candidateCount = filter.candidates().cardinality();
+            if (candidateCount == 0) {
+                return List.of();
+            }
+            // 第 0 层图遍历大约计算 ef * M 次相似度，候选比这更少时直接精确扫描更快，且结果精确
+            if (candidateCount <= ef * m) {
+                return exactSearch(vector, topK, filter);
+            }
+            // 按候选占比放宽搜索宽度，使遍历结果中满足条件的节点数量与不过滤时相当
+            ef = (int) Math.min((long) ef * (nodes.size() - deletedCount) / candidateCount, candidateCount);
+        }
+        QueryVector query = toQuery(vector);
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            current = greedySearch(query, current, l);
+        }
+        List<Candidate> candidates = searchLayer(query, current, ef, 0);
+        if (quantizedVectors != null) {
+            // 量化分数只用于圈定候选，最终排序使用原始向量的精确分数
+            candidates = candidates.stream()
+                    .map(candidate -> new Candidate(candidate.node(), vectors.dot(vector, candidate.node())))
+                    .sorted(Comparator.comparingDouble(Candidate::score).reversed())
+                    .toList();
+        }
+        List<Candidate> results = candidates.stream()
+                .filter(candidate -> isLive(candidate.node(), filter))
+                .limit(topK)
+                .toList();
+        if (results.size() < topK && (filter != null || deletedCount > 0) && results.size() < nodes.size() - deletedCount) {
+            return exactSearch(vector, topK, filter);
+        }
+        return results;
+    }
+
+    private List<Candidate> exactSearch(float[] query, int topK, SearchFilter filter) {
+        PriorityQueue<Candidate> top = new PriorityQueue<>(Comparator.comparingDouble(Candidate::score));
+        for (int i = nextCandidate(filter, 0); i >= 0; i = nextCandidate(filter, i + 1)) {
+            if (!isLive(i, filter)) {
+                continue;
+            }
+            top.add(new Candidate(i, vectors.dot(query, i)));
+            if (top.size() > topK) {
+                top.poll();
+            }
+        }
+        List<Candidate> results = new ArrayList<>(top);
+        results.sort(Comparator.comparingDouble(Candidate::score).reversed());
+        return results;
+    }
+
+    private boolean isLive(int index, SearchFilter filter) {
+        Node node = nodes.get(index);
+        return !node.deleted && (filter == null || filter.test(index, metadataTable.get(index)));
+    }
+
+    /**
+     * 从 from 开始的下一个可能满足过滤条件的节点，没有时返回 -1
+     */
+    private int nextCandidate(SearchFilter filter, int from) {
+        if (filter == null || filter.candidates() == null) {
+            return from < nodes.size() ? from : -1;
+        }
+        return filter.candidates().nextSetBit(from);
+    }
+
+    /**
+     * 先用位图索引求出候选节点，索引无法精确求值的部分再逐个求值
+     */
+    private SearchFilter toFilter(Filter.Expression expression) {
+        return new SearchFilter(expression, metadataIndex.select(expression, nodes.size()));
+    }
+
+    /**
+     * 在指定层上贪心移动到离查询最近的节点
+     */
+    private int greedySearch(QueryVector query, int entry, int level) {
+        int current = entry;
+        float best = score(query, current);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Node node = nodes.get(current);
+            for (int i = 0; i < node.neighborCounts[level]; i++) {
+                int neighbor = node.neighbors[level][i];
+                float score = score(query, neighbor);
+                if (score > best) {
+                    best = score;
+                    current = neighbor;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 在指定层上做宽度为 ef 的最佳优先搜索
+     *
+     * @return 按相似度从高到低排序的候选节点
+     */
+    private List<Candidate> searchLayer(QueryVector query, int entry, int ef, int level) {
+        BitSet visited = new BitSet(nodes.size());
+        visited.set(entry);
+        Candidate start = new Candidate(entry, score(query, entry));
+        // 待扩展的候选，相似度高的先扩展
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(Candidate::score).reversed());
+        // 当前结果，堆顶为最差的结果
+        PriorityQueue<Candidate> results = new PriorityQueue<>(Comparator.comparingDouble(Candidate::score));
+        candidates.add(start);
+        results.add(start);
+        while (!candidates.isEmpty()) {
+            Candidate candidate = candidates.poll();
+            if (results.size() >= ef && candidate.score() < results.peek().score()) {
+                break;
+            }
+            Node node = nodes.get(candidate.node());
+            for (int i = 0; i < node.neighborCounts[level]; i++) {
+                int neighbor = node.neighbors[level][i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float score = score(query, neighbor);
+                if (results.size() < ef || score > results.peek().score()) {
+                    Candidate next = new Candidate(neighbor, score);
+                    candidates.add(next);
+                    results.add(next);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble(Candidate::score).reversed());
+        return sorted;
+    }
+
+    /**
+     * 启发式选择邻居：优先保留彼此不太相似的候选，让图在不同方向上都有连接
+     *
+     * @param candidates 按相似度从高到低排序的候选
+     */
+    private int[] selectNeighbors(List<Candidate> candidates, int maxNeighbors) {
+        int[] selected = new int[Math.min(maxNeighbors, candidates.size())];
+        int count = 0;
+        BitSet picked = new BitSet(candidates.size());
+        for (int i = 0; i < candidates.size() && count < selected.length; i++) {
+            Candidate candidate = candidates.get(i);
+            boolean diverse = true;
+            for (int j = 0; j < count; j++) {
+                if (score(candidate.node(), selected[j]) > candidate.score()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[count++] = candidate.node();
+                picked.set(i);
+            }
+        }
+        // 启发式选出的邻居不足时，按相似度补齐
+        for (int i = 0; i < candidates.size() && count < selected.length; i++) {
+            if (!picked.get(i)) {
+                selected[count++] = candidates.get(i).node();
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * 添加一条有向边，邻居已满时重新挑选
+     */
+    private void connect(int from, int to, int level) {
+        Node node = nodes.get(from);
+        int count = node.neighborCounts[level];
+        int[] neighbors = node.neighbors[level];
+        if (count < neighbors.length) {
+            neighbors[count] = to;
+            node.neighborCounts[level]++;
+            return;
+        }
+        List<Candidate> candidates = new ArrayList<>(count + 1);
+        for (int i = 0; i < count; i++) {
+            candidates.add(new Candidate(neighbors[i], score(from, neighbors[i])));
+        }
+        candidates.add(new Candidate(to, score(from, to)));
+        candidates.sort(Comparator.comparingDouble(Candidate::score).reversed());
+        int[] selected = selectNeighbors(candidates, neighbors.length);
+        System.arraycopy(selected, 0, neighbors, 0, selected.length);
+        node.neighborCounts[level] = selected.length;
+    }
+
+    private void addVector(float[] vector) {
+        vectors.add(vector);
+        if (quantizedVectors != null) {
+            quantizedVectors.add(vector);
+        }
+    }
+
+    private QueryVector toQuery(float[] vector) {
+        return new QueryVector(vector, quantizedVectors != null ? Int8VectorStorage.quantize(vector) : null);
+    }
+
+    /**
+     * 图遍历使用的相似度，开启量化时使用量化向量
+     */
+    private float score(QueryVector query, int node) {
+        return quantizedVectors != null ? quantizedVectors.dot(query.quantized(), node) : vectors.dot(query.vector(), node);
+    }
+
+    private float score(int a, int b) {
+        return quantizedVectors != null ? quantizedVectors.dot(a, b) : vectors.dot(a, b);
+    }
+
+    private int maxConnections(int level) {
+        return level == 0 ? m * 2 : m;
+    }
+
+    private int randomLevel() {
+        return (int) Math.floor(-Math.log(1 - random.nextDouble()) * levelMultiplier);
+    }
+
+    private Document toDocument(int index, double score) {
+        Node node = nodes.get(index);
+        Map<String, Object> metadata = new HashMap<>(metadataTable.get(index));
+        metadata.put(DocumentMetadata.DISTANCE.value(), 1.0 - score);
+        return Document.builder().id(node.id).text(node.text).metadata(metadata).score(score).build();
+    }
+
+    /**
+     * 向量归一化后点积即为余弦相似度
+     */
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        if (norm == 0) {
+            return vector;
+        }
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private record Candidate(int node, float score) {
+    }
+
+    /**
+     * 检索时的过滤条件
+     *
+     * @param expression 过滤表达式
+     * @param selection  位图索引求出的候选节点，索引无法求值时为 null
+     */
+    private record SearchFilter(Filter.Expression expression, MetadataBitmapIndex.Selection selection) {
+        BitSet candidates() {
+            return selection == null ? null : selection.nodes();
+        }
+
+        boolean test(int index, Map<String, Object> metadata) {
+            if (selection != null) {
+                if (!selection.nodes().get(index)) {
+                    return false;
+                }
+                if (selection.exact()) {
+                    return true;
+                }
+            }
+            return MetadataFilterEvaluator.matches(expression, metadata);
+        }
+    }
+
+    /**
+     * 图遍历的查询向量，开启量化时同时携带量化后的版本
+     */
+    private record QueryVector(float[] vector, Int8VectorStorage.QuantizedVector quantized) {
+    }
+
+    /**
+     * 图节点：文档内容和每一层的邻居，向量和元信息按相同下标存放在 {@link OffHeapVectorStorage}、{@link MetadataTable} 中
+     */
+    private final class Node {
+        private final String id;
+        private final String text;
+        private final int[][] neighbors;
+        private final int[] neighborCounts;
+        private boolean deleted;
+
+        private Node(String id, String text, int level) {
+            this.id = id;
+            this.text = text;
+            this.neighbors = new int[level + 1][];
+            this.neighborCounts = new int[level + 1];
+            for (int l = 0; l <= level; l++) {
+                neighbors[l] = new int[maxConnections(l)];
+            }
+        }
+    }
+
+    public static final class Builder {
+        private final EmbeddingModel embeddingModel;
+        private int m = 16;
+        private int efConstruction = 200;
+        private int efSearch = 64;
+        private boolean quantized;
+        private Set<String> indexedMetadataKeys = Set.of("filename", "status", "excerpt_keywords");
+
+        private Builder(EmbeddingModel embeddingModel) {
+            this.embeddingModel = embeddingModel;
+        }
+
+        /**
+         * 每个节点的最大邻居数，越大召回越高、内存和建图耗时越大
+         */
+        public Builder m(int m) {
+            this.m = m;
+            return this;
+        }
+
+        /**
+         * 建图时的搜索宽度
+         */
+        public Builder efConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+            return this;
+        }
+
+        /**
+         * 检索时的搜索宽度，越大召回越高、检索越慢
+         */
+        public Builder efSearch(int efSearch) {
+            this.efSearch = efSearch;
+            return this;
+        }
+
+        /**
+         * 是否开启 int8 标量量化，开启后图遍历的内存带宽降为 1/4，候选结果用原始向量精确重排
+         */
+        public Builder quantized(boolean quantized) {
+            this.quantized = quantized;
+            return this;
+        }
+
+        /**
+         * 建立位图索引的元信息键，这些键上的等值、IN 过滤会在计算相似度之前裁剪候选
+         */
+        public Builder indexedMetadataKeys(Set<String> indexedMetadataKeys) {
+            this.indexedMetadataKeys = Set.copyOf(indexedMetadataKeys);
+            return this;
+        }
+
+        public HnswVectorStore build() {
+            return new HnswVectorStore(this);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.yhh.travelagent.rag.vectorstore;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.math.BigDecimal;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @Date 2025-07-28 14:10
+ * @ClassName: MetadataBitmapIndex
+ * @Description: 元信息位图索引：为指定元信息键的每个取值维护一个节点位图，
+ * 过滤表达式先在位图上求出候选节点，再计算相似度，过滤条件越严格检索越快
+ * 与 {@link MetadataFilterEvaluator} 的判等语义保持一致；只包含索引键的等值、IN、NE、NIN 及其与或非组合可以精确求值
+ */
+final class MetadataBitmapIndex {
+
+    // 数值与字符串分开存放，保证与 MetadataFilterEvaluator.valueEquals 的结果一致
+    private static final String NUMBER_PREFIX = "n:";
+    private static final String STRING_PREFIX = "s:";
+
+    private final Set<String> keys;
+    // 元信息键 -> 取值 -> 含有该取值的节点
+    private final Map<String, Map<String, BitSet>> bitmaps = new HashMap<>();
+
+    MetadataBitmapIndex(Set<String> keys) {
+        this.keys = Set.copyOf(keys);
+    }
+
+    void add(int node, Map<String, Object> metadata) {
+        for (String key : keys) {
+            Object value = metadata.get(key);
+            if (value == null) {
+                continue;
+            }
+            Map<String, BitSet> values = bitmaps.computeIfAbsent(key, k -> new HashMap<>());
+            for (String term : indexTerms(value)) {
+                values.computeIfAbsent(term, t -> new BitSet()).set(node);
+            }
+        }
+    }
+
+    void remove(int node, Map<String, Object> metadata) {
+        for (String key : keys) {
+            Object value = metadata.get(key);
+            Map<String, BitSet> values = bitmaps.get(key);
+            if (value == null || values == null) {
+                continue;
+            }
+            for (String term : indexTerms(value)) {
+                BitSet bits = values.get(term);
+                if (bits != null) {
+                    bits.clear(node);
+                    if (bits.isEmpty()) {
+                        values.remove(term);
+                    }
+                }
+            }
+        }
+    }
+
+    void clear() {
+        bitmaps.clear();
+    }
+
+    /**
+     * 用位图求出满足过滤表达式的候选节点
+     *
+     * @param expression 过滤表达式
+     * @param size       节点总数，取反时作为全集
+     * @return 候选节点；表达式无法用索引求值时返回 null
+     */
+    Selection select(Filter.Expression expression, int size) {
+        return switch (expression.type()) {
+            case AND -> and(select(MetadataFilterEvaluator.operand(expression.left()), size),
+                    select(MetadataFilterEvaluator.operand(expression.right()), size));
+            case OR -> or(select(MetadataFilterEvaluator.operand(expression.left()), size),
+                    select(MetadataFilterEvaluator.operand(expression.right()), size));
+            case NOT -> not(select(MetadataFilterEvaluator.operand(expression.left()), size), size);
+            case EQ, IN -> lookup(expression);
+            case NE, NIN -> not(lookup(expression), size);
+            // 范围比较不走索引，由调用方逐个求值
+            default -> null;
+        };
+    }
+
+    private Selection lookup(Filter.Expression expression) {
+        String key = MetadataFilterEvaluator.key(expression);
+        Object expected = MetadataFilterEvaluator.value(expression);
+        if (!keys.contains(key) || expected == null) {
+            return null;
+        }
+        Map<String, BitSet> values = bitmaps.getOrDefault(key, Map.of());
+        BitSet result = new BitSet();
+        Collection<?> expectedValues = expected instanceof Collection<?> collection && expression.type() != Filter.ExpressionType.EQ
+                ? collection : List.of(expected);
+        for (Object value : expectedValues) {
+            if (value == null) {
+                return null;
+            }
+            for (String term : indexTerms(value)) {
+                BitSet bits = values.get(term);
+                if (bits != null) {
+                    result.or(bits);
+                }
+            }
+        }
+        return new Selection(result, true);
+    }
+
+    /**
+     * 与：一侧无法用索引求值时，另一侧仍可作为候选的上界
+     */
+    private static Selection and(Selection left, Selection right) {
+        if (left == null || right == null) {
+            Selection known = left == null ? right : left;
+            return known == null ? null : new Selection(known.nodes(), false);
+        }
+        BitSet result = (BitSet) left.nodes().clone();
+        result.and(right.nodes());
+        return new Selection(result, left.exact() && right.exact());
+    }
+
+    private static Selection or(Selection left, Selection right) {
+        if (left == null || right == null) {
+            return null;
+        }
+        BitSet result = (BitSet) left.nodes().clone();
+        result.or(right.nodes());
+        return new Selection(result, left.exact() && right.exact());
+    }
+
+    /**
+     * 非：只有精确结果才能取反，候选上界取反后不再是上界
+     */
+    private static Selection not(Selection selection, int size) {
+        if (selection == null || !selection.exact()) {
+            return null;
+        }
+        BitSet result = (BitSet) selection.nodes().clone();
+        result.flip(0, size);
+        return new Selection(result, true);
+    }
+
+    private static List<String> indexTerms(Object value) {
+        if (value instanceof Number) {
+            return List.of(NUMBER_PREFIX + normalize(value), STRING_PREFIX + value);
+        }
+        return List.of(STRING_PREFIX + value);
+    }
+
+    private static String normalize(Object number) {
+        BigDecimal decimal = number instanceof BigDecimal value ? value : new BigDecimal(number.toString());
+        return decimal.stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * 候选节点
+     *
+     * @param nodes 候选节点位图
+     * @param exact 是否恰好等于满足条件的节点；为 false 时只是上界，还需逐个求值
+     */
+    record Selection(BitSet nodes, boolean exact) {
+    }
+}
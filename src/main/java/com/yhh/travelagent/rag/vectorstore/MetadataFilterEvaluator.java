@@ -0,0 +1,115 @@
+package com.yhh.travelagent.rag.vectorstore;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+
+/**
+ * @Date 2025-07-23 9:30
+ * @ClassName: MetadataFilterEvaluator
+ * @Description: 直接在 Java 中对文档元信息求值过滤表达式，代替 SimpleVectorStore 的逐文档 SpEL 解析
+ */
+public final class MetadataFilterEvaluator {
+
+    private MetadataFilterEvaluator() {
+    }
+
+    /**
+     * 判断元信息是否满足过滤表达式
+     *
+     * @param expression 过滤表达式，为空时视为全部满足
+     * @param metadata   文档元信息
+     */
+    public static boolean matches(Filter.Expression expression, Map<String, Object> metadata) {
+        if (expression == null) {
+            return true;
+        }
+        return switch (expression.type()) {
+            case AND -> matches(operand(expression.left()), metadata) && matches(operand(expression.right()), metadata);
+            case OR -> matches(operand(expression.left()), metadata) || matches(operand(expression.right()), metadata);
+            case NOT -> !matches(operand(expression.left()), metadata);
+            case EQ -> valueEquals(metadata.get(key(expression)), value(expression));
+            case NE -> !valueEquals(metadata.get(key(expression)), value(expression));
+            case GT -> compare(metadata.get(key(expression)), value(expression), result -> result > 0);
+            case GTE -> compare(metadata.get(key(expression)), value(expression), result -> result >= 0);
+            case LT -> compare(metadata.get(key(expression)), value(expression), result -> result < 0);
+            case LTE -> compare(metadata.get(key(expression)), value(expression), result -> result <= 0);
+            case IN -> valueIn(metadata.get(key(expression)), value(expression));
+            case NIN -> !valueIn(metadata.get(key(expression)), value(expression));
+        };
+    }
+
+    /**
+     * 取出比较表达式左侧的元信息键，兼容文本表达式中带引号的键
+     */
+    public static String key(Filter.Expression expression) {
+        String key = ((Filter.Key) expression.left()).key();
+        if (key.length() > 1 && (key.startsWith("'") && key.endsWith("'") || key.startsWith("\"") && key.endsWith("\""))) {
+            return key.substring(1, key.length() - 1);
+        }
+        return key;
+    }
+
+    /**
+     * 取出比较表达式右侧的值
+     */
+    public static Object value(Filter.Expression expression) {
+        return ((Filter.Value) expression.right()).value();
+    }
+
+    /**
+     * 展开分组，得到内部的表达式
+     */
+    public static Filter.Expression operand(Filter.Operand operand) {
+        if (operand instanceof Filter.Group group) {
+            return group.content();
+        }
+        return (Filter.Expression) operand;
+    }
+
+    /**
+     * 比较元信息值与表达式值，数值按大小比较（避免 Integer 与 Long 不相等）
+     */
+    public static boolean valueEquals(Object actual, Object expected) {
+        if (actual instanceof Number && expected instanceof Number) {
+            return toBigDecimal(actual).compareTo(toBigDecimal(expected)) == 0;
+        }
+        if (actual == null || expected == null) {
+            return actual == expected;
+        }
+        return Objects.equals(actual.toString(), expected.toString());
+    }
+
+    private static boolean valueIn(Object actual, Object expected) {
+        if (!(expected instanceof Collection<?> values)) {
+            return valueEquals(actual, expected);
+        }
+        for (Object value : values) {
+            if (valueEquals(actual, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 数值按大小比较，其余按字符串比较；元信息缺失时视为不满足
+     */
+    private static boolean compare(Object actual, Object expected, IntPredicate predicate) {
+        if (actual == null || expected == null) {
+            return false;
+        }
+        if (actual instanceof Number && expected instanceof Number) {
+            return predicate.test(toBigDecimal(actual).compareTo(toBigDecimal(expected)));
+        }
+        return predicate.test(actual.toString().compareTo(expected.toString()));
+    }
+
+    private static BigDecimal toBigDecimal(Object number) {
+        return number instanceof BigDecimal decimal ? decimal : new BigDecimal(number.toString());
+    }
+}
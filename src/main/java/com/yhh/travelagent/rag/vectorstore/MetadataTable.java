@@ -0,0 +1,124 @@
+package com.yhh.travelagent.rag.vectorstore;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * @Date 2025-07-24 9:40
+ * @ClassName: MetadataTable
+ * @Description: 紧凑的元信息表，行号与节点下标一一对应，代替每个节点一个 HashMap：
+ * 键集合相同的行共用一份排好序的键数组，每行只保存取值数组；相同的字符串取值（文件名、状态、关键词等）只保留一份。
+ * 同一文件切分出的文档块元信息几乎相同，行的堆占用只有取值数组本身
+ */
+final class MetadataTable {
+
+    // 键集合 -> 排好序的键数组，键集合相同的行共用
+    private final Map<List<String>, String[]> shapes = new HashMap<>();
+    // 字符串取值去重
+    private final Map<String, String> strings = new HashMap<>();
+    private final List<Row> rows = new ArrayList<>();
+
+    /**
+     * 追加一行
+     *
+     * @return 行号
+     */
+    int add(Map<String, Object> metadata) {
+        String[] keys = metadata.keySet().stream().map(this::intern).sorted().toArray(String[]::new);
+        String[] shape = shapes.computeIfAbsent(List.of(keys), k -> keys);
+        Object[] values = new Object[shape.length];
+        for (int i = 0; i < shape.length; i++) {
+            Object value = metadata.get(shape[i]);
+            values[i] = value instanceof String text ? intern(text) : value;
+        }
+        rows.add(new Row(shape, values));
+        return rows.size() - 1;
+    }
+
+    /**
+     * 行的只读视图，不复制数据
+     */
+    Map<String, Object> get(int row) {
+        return rows.get(row);
+    }
+
+    void clear() {
+        shapes.clear();
+        strings.clear();
+        rows.clear();
+    }
+
+    private String intern(String value) {
+        String existing = strings.putIfAbsent(value, value);
+        return existing == null ? value : existing;
+    }
+
+    /**
+     * 一行元信息，按键二分查找取值
+     */
+    private static final class Row extends AbstractMap<String, Object> {
+        private final String[] keys;
+        private final Object[] values;
+
+        private Row(String[] keys, Object[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        public Object get(Object key) {
+            int index = key instanceof String name ? Arrays.binarySearch(keys, name) : -1;
+            return index >= 0 ? values[index] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String name && Arrays.binarySearch(keys, name) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < keys.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (index >= keys.length) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<String, Object> entry = new SimpleImmutableEntry<>(keys[index], values[index]);
+                            index++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.yhh.travelagent.rag.vectorstore;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Date 2025-07-24 9:20
+ * @ClassName: OffHeapVectorStorage
+ * @Description: 堆外连续存储的定长向量表，按块分配直接内存，向量不占用堆空间也不参与 GC 扫描
+ */
+public class OffHeapVectorStorage {
+
+    // 每块容纳的向量数量，扩容时只追加新块，不复制已有数据
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final List<FloatBuffer> chunks = new ArrayList<>();
+    private int dimensions = -1;
+    private int size;
+
+    /**
+     * 追加一个向量，第一个向量决定维度
+     *
+     * @return 向量下标
+     */
+    public int add(float[] vector) {
+        if (dimensions < 0) {
+            dimensions = vector.length;
+        } else if (vector.length != dimensions) {
+            throw new IllegalArgumentException("向量维度不一致，期望 " + dimensions + "，实际 " + vector.length);
+        }
+        int index = size;
+        if ((index >>> CHUNK_SHIFT) == chunks.size()) {
+            chunks.add(ByteBuffer.allocateDirect(CHUNK_SIZE * dimensions * Float.BYTES)
+                    .order(ByteOrder.nativeOrder())
+                    .asFloatBuffer());
+        }
+        chunks.get(index >>> CHUNK_SHIFT).put((index & CHUNK_MASK) * dimensions, vector);
+        size++;
+        return index;
+    }
+
+    /**
+     * 读取向量到新数组
+     */
+    public float[] get(int index) {
+        float[] vector = new float[dimensions];
+        chunks.get(index >>> CHUNK_SHIFT).get((index & CHUNK_MASK) * dimensions, vector);
+        return vector;
+    }
+
+    /**
+     * 查询向量与已存向量的点积
+     */
+    public float dot(float[] query, int index) {
+        FloatBuffer chunk = chunks.get(index >>> CHUNK_SHIFT);
+        int offset = (index & CHUNK_MASK) * dimensions;
+        // 四路独立累加，缩短浮点加法的依赖链；JIT 不会重排浮点加法，这里的归约不会被自动向量化
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        int bound = dimensions & ~3;
+        for (; i < bound; i += 4) {
+            s0 += query[i] * chunk.get(offset + i);
+            s1 += query[i + 1] * chunk.get(offset + i + 1);
+            s2 += query[i + 2] * chunk.get(offset + i + 2);
+            s3 += query[i + 3] * chunk.get(offset + i + 3);
+        }
+        for (; i < dimensions; i++) {
+            s0 += query[i] * chunk.get(offset + i);
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * 两个已存向量的点积
+     */
+    public float dot(int a, int b) {
+        FloatBuffer chunkA = chunks.get(a >>> CHUNK_SHIFT);
+        FloatBuffer chunkB = chunks.get(b >>> CHUNK_SHIFT);
+        int offsetA = (a & CHUNK_MASK) * dimensions;
+        int offsetB = (b & CHUNK_MASK) * dimensions;
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        int bound = dimensions & ~3;
+        for (; i < bound; i += 4) {
+            s0 += chunkA.get(offsetA + i) * chunkB.get(offsetB + i);
+            s1 += chunkA.get(offsetA + i + 1) * chunkB.get(offsetB + i + 1);
+            s2 += chunkA.get(offsetA + i + 2) * chunkB.get(offsetB + i + 2);
+            s3 += chunkA.get(offsetA + i + 3) * chunkB.get(offsetB + i + 3);
+        }
+        for (; i < dimensions; i++) {
+            s0 += chunkA.get(offsetA + i) * chunkB.get(offsetB + i);
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * 清空所有向量，直接内存在块对象被回收时释放
+     */
+    public void clear() {
+        chunks.clear();
+        dimensions = -1;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * 已分配的直接内存字节数
+     */
+    public long allocatedBytes() {
+        return (long) chunks.size() * CHUNK_SIZE * Math.max(dimensions, 0) * Float.BYTES;
+    }
+}
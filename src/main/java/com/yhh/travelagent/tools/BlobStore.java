@@ -0,0 +1,468 @@
+package com.yhh.travelagent.tools;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * @Date 2025-08-02 15:00
+ * @ClassName: BlobStore
+ * @Description: 内容寻址的文件存储：文件内容按 SHA-256 命名存放（objects/ab/<sha256>），相同内容只存一份；
+ * 工具看到的文件名（按 pdf、html、file、download 等命名空间区分）只是指向哈希的引用，记录在 refs.json 中。
+ * 每个内容按引用数计数，没有引用且超过保留期的内容由 gc 删除
+ */
+@Slf4j
+public class BlobStore implements AutoCloseable {
+
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private final Path objectDir;
+    private final Path tmpDir;
+    private final Path indexFile;
+    // 无引用的内容至少保留多久才回收，兜底保护固定机制之外遗留的内容
+    private final Duration gcGrace;
+
+    // 命名空间/文件名 -> 引用，读写均在 this 上同步
+    private final Map<String, Ref> refs = new LinkedHashMap<>();
+    // 内容哈希 -> 引用数
+    private final Map<String, Integer> refCounts = new HashMap<>();
+    // 内容哈希 -> 固定次数，已存入但尚未建立引用的内容在固定期间不会被 gc 回收
+    private final Map<String, Integer> pins = new HashMap<>();
+
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder reclaimedBytes = new LongAdder();
+
+    // 定期 gc 的后台线程，未调用 scheduleGc 时为空
+    private ScheduledExecutorService gcScheduler;
+
+    public BlobStore(Path directory, Duration gcGrace) {
+        this.objectDir = directory.resolve("objects");
+        this.tmpDir = directory.resolve("tmp");
+        this.indexFile = directory.resolve("refs.json");
+        this.gcGrace = gcGrace;
+        FileUtil.mkdir(objectDir.toFile());
+        FileUtil.mkdir(tmpDir.toFile());
+        loadIndex();
+    }
+
+    /**
+     * 写入文件：内容先写到临时文件并同时计算哈希，再存入并建立引用；同名文件已存在时覆盖引用
+     */
+    public Ref write(String namespace, String name, ContentWriter writer) throws IOException {
+        String key = key(namespace, name);
+        Path tempFile = tmpDir.resolve(UUID.randomUUID() + ".tmp");
+        MessageDigest digest = newDigest();
+        try {
+            try (OutputStream out = new DigestOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)), digest)) {
+                writer.write(out);
+            }
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            synchronized (this) {
+                commit(tempFile, sha256);
+                return linkKey(key, namespace, sha256);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * 写入 UTF-8 文本
+     */
+    public Ref writeString(String namespace, String name, String content) throws IOException {
+        return write(namespace, name, out -> out.write(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 把已有文件移入存储并建立引用；相同内容已存在时删除该文件
+     */
+    public Ref add(String namespace, String name, Path file) throws IOException {
+        String key = key(namespace, name);
+        String sha256 = sha256(file);
+        synchronized (this) {
+            commit(file, sha256);
+            return linkKey(key, namespace, sha256);
+        }
+    }
+
+    /**
+     * 把已有文件移入存储并固定（不建立引用），返回内容哈希；调用方建立引用后需 {@link #unpin(String)}
+     */
+    public String addPinned(Path file) throws IOException {
+        String sha256 = sha256(file);
+        synchronized (this) {
+            commit(file, sha256);
+            pins.merge(sha256, 1, Integer::sum);
+        }
+        return sha256;
+    }
+
+    /**
+     * 固定已存在的内容，固定期间不会被 gc 回收
+     *
+     * @return 内容不存在时返回 false
+     */
+    public synchronized boolean pin(String sha256) {
+        if (!contains(sha256)) {
+            return false;
+        }
+        pins.merge(sha256, 1, Integer::sum);
+        return true;
+    }
+
+    public synchronized void unpin(String sha256) {
+        pins.computeIfPresent(sha256, (hash, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * 建立文件名到内容的引用，内容必须已在存储中
+     */
+    public Ref link(String namespace, String name, String sha256) throws IOException {
+        return linkKey(key(namespace, name), namespace, sha256);
+    }
+
+    /**
+     * 查找文件名对应的引用
+     */
+    public synchronized Optional<Ref> get(String namespace, String name) {
+        return Optional.ofNullable(refs.get(key(namespace, name)));
+    }
+
+    /**
+     * 命名空间下的所有文件，按修改时间倒序
+     */
+    public synchronized List<Ref> list(String namespace) {
+        return refs.values().stream()
+                .filter(ref -> ref.namespace().equals(namespace))
+                .sorted(Comparator.comparingLong(Ref::modifiedAt).reversed())
+                .toList();
+    }
+
+    /**
+     * 删除文件名的引用，内容在 gc 时回收
+     */
+    public synchronized boolean delete(String namespace, String name) {
+        Ref removed = refs.remove(key(namespace, name));
+        if (removed == null) {
+            return false;
+        }
+        release(removed.sha256());
+        saveIndex();
+        return true;
+    }
+
+    /**
+     * 内容哈希对应的存储文件
+     */
+    public Path objectPath(String sha256) {
+        // 按前两位分目录，避免单个目录下文件过多
+        return objectDir.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    public boolean contains(String sha256) {
+        return Files.isRegularFile(objectPath(sha256));
+    }
+
+    /**
+     * 回收没有引用且超过保留期的内容，以及遗留的临时文件
+     */
+    public synchronized GcResult gc() {
+        long threshold = System.currentTimeMillis() - gcGrace.toMillis();
+        int deleted = 0;
+        long bytes = 0;
+        try (Stream<Path> files = Files.walk(objectDir)) {
+            for (Path object : files.filter(Files::isRegularFile).toList()) {
+                String sha256 = object.getFileName().toString();
+                if (refCounts.containsKey(sha256) || pins.containsKey(sha256)
+                        || Files.getLastModifiedTime(object).toMillis() > threshold) {
+                    continue;
+                }
+                long size = Files.size(object);
+                Files.delete(object);
+                deleted++;
+                bytes += size;
+            }
+        } catch (IOException e) {
+            log.warn("回收文件存储失败", e);
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tmpDir)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toMillis() <= threshold) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("清理临时文件失败", e);
+        }
+        reclaimedBytes.add(bytes);
+        if (deleted > 0) {
+            log.info("文件存储回收 {} 个无引用内容，释放 {} 字节", deleted, bytes);
+        }
+        return new GcResult(deleted, bytes);
+    }
+
+    /**
+     * 按固定间隔在后台执行 gc，重复调用只保留第一次的调度
+     */
+    public synchronized void scheduleGc(Duration interval) {
+        if (gcScheduler != null) {
+            return;
+        }
+        gcScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "blob-store-gc");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        gcScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                gc();
+            } catch (RuntimeException e) {
+                log.warn("定期回收文件存储失败", e);
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (gcScheduler != null) {
+            gcScheduler.shutdownNow();
+            gcScheduler = null;
+        }
+    }
+
+    /**
+     * 把旧版按目录保存的文件导入存储，导入后原文件移除；已有同名引用的文件保持不动
+     *
+     * @return 导入的文件数
+     */
+    public int importDirectory(String namespace, Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        int imported = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, Files::isRegularFile)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (get(namespace, name).isPresent()) {
+                    continue;
+                }
+                add(namespace, name, file);
+                imported++;
+            }
+        } catch (IOException e) {
+            log.warn("导入目录失败: {}", directory, e);
+        }
+        if (imported > 0) {
+            log.info("导入 {} 个文件到文件存储，命名空间: {}", imported, namespace);
+        }
+        return imported;
+    }
+
+    /**
+     * 存储统计
+     */
+    public synchronized StoreStats getStats() {
+        long logicalBytes = 0;
+        Map<String, Long> objectSizes = new HashMap<>();
+        for (Ref ref : refs.values()) {
+            logicalBytes += ref.size();
+            objectSizes.put(ref.sha256(), ref.size());
+        }
+        long storedBytes = objectSizes.values().stream().mapToLong(Long::longValue).sum();
+        return new StoreStats(refs.size(), refCounts.size(), logicalBytes, storedBytes, writes.sum(),
+                deduplicated.sum(), reclaimedBytes.sum());
+    }
+
+    /**
+     * 通过 FileChannel 分块读取计算 SHA-256，不把文件读入内存
+     */
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 文件移入内容目录；相同内容已存在时丢弃该文件，并刷新已有内容的时间。
+     * 调用方需持有锁，并在同一锁内建立引用或固定，否则 gc 可能在两步之间回收该内容
+     */
+    private void commit(Path file, String sha256) throws IOException {
+        writes.increment();
+        Path object = objectPath(sha256);
+        if (Files.isRegularFile(object)) {
+            Files.delete(file);
+            Files.setLastModifiedTime(object, FileTime.fromMillis(System.currentTimeMillis()));
+            deduplicated.increment();
+            return;
+        }
+        Files.createDirectories(object.getParent());
+        Files.move(file, object, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private synchronized Ref linkKey(String key, String namespace, String sha256) throws IOException {
+        Path object = objectPath(sha256);
+        if (!Files.isRegularFile(object)) {
+            throw new IOException("内容不存在: " + sha256);
+        }
+        Ref ref = new Ref(namespace, key.substring(namespace.length() + 1), sha256, Files.size(object),
+                System.currentTimeMillis());
+        Ref previous = refs.put(key, ref);
+        refCounts.merge(sha256, 1, Integer::sum);
+        if (previous != null) {
+            release(previous.sha256());
+        }
+        saveIndex();
+        return ref;
+    }
+
+    private void release(String sha256) {
+        refCounts.computeIfPresent(sha256, (hash, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * 命名空间与文件名组成的键；文件名不能是绝对路径或跳出命名空间
+     */
+    static String key(String namespace, String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("文件名不能为空");
+        }
+        Path path = Path.of(name).normalize();
+        if (path.isAbsolute() || path.toString().isEmpty() || path.startsWith("..")) {
+            throw new IllegalArgumentException("非法的文件名: " + name);
+        }
+        return namespace + "/" + path.toString().replace('\\', '/');
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void loadIndex() {
+        if (!Files.isRegularFile(indexFile)) {
+            return;
+        }
+        try {
+            JSONObject json = JSONUtil.parseObj(FileUtil.readUtf8String(indexFile.toFile()));
+            json.forEach((key, value) -> {
+                JSONObject ref = JSONUtil.parseObj(value);
+                String sha256 = ref.getStr("sha256");
+                if (!contains(sha256)) {
+                    log.warn("文件存储缺少内容，忽略引用: {}", key);
+                    return;
+                }
+                refs.put(key, new Ref(ref.getStr("namespace"), ref.getStr("name"), sha256,
+                        ref.getLong("size", 0L), ref.getLong("modifiedAt", 0L)));
+                refCounts.merge(sha256, 1, Integer::sum);
+            });
+            log.info("加载文件存储索引，引用: {} 个，内容: {} 个", refs.size(), refCounts.size());
+        } catch (Exception e) {
+            log.warn("读取文件存储索引失败，忽略: {}", indexFile, e);
+        }
+    }
+
+    private void saveIndex() {
+        try {
+            JSONObject json = JSONUtil.createObj();
+            refs.forEach((key, ref) -> json.set(key, JSONUtil.createObj()
+                    .set("namespace", ref.namespace())
+                    .set("name", ref.name())
+                    .set("sha256", ref.sha256())
+                    .set("size", ref.size())
+                    .set("modifiedAt", ref.modifiedAt())));
+            Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            FileUtil.writeUtf8String(json.toString(), tempFile.toFile());
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            log.warn("保存文件存储索引失败: {}", indexFile, e);
+        }
+    }
+
+    /**
+     * 写入文件内容
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * 文件名到内容的引用
+     *
+     * @param namespace  命名空间
+     * @param name       文件名
+     * @param sha256     内容哈希
+     * @param size       文件大小
+     * @param modifiedAt 引用建立的时间（毫秒）
+     */
+    public record Ref(String namespace, String name, String sha256, long size, long modifiedAt) {
+    }
+
+    /**
+     * 回收结果
+     *
+     * @param deletedObjects 删除的内容数
+     * @param reclaimedBytes 释放的字节数
+     */
+    public record GcResult(int deletedObjects, long reclaimedBytes) {
+    }
+
+    /**
+     * 存储统计
+     *
+     * @param names          文件名数
+     * @param objects        被引用的内容数
+     * @param logicalBytes   所有文件名的大小之和
+     * @param storedBytes    被引用内容实际占用的大小
+     * @param writes         写入次数
+     * @param deduplicated   写入时内容已存在、未重复保存的次数
+     * @param reclaimedBytes gc 累计释放的字节数
+     */
+    public record StoreStats(int names, int objects, long logicalBytes, long storedBytes, long writes,
+                             long deduplicated, long reclaimedBytes) {
+    }
+}
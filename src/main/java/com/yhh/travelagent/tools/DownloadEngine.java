@@ -0,0 +1,621 @@
+package com.yhh.travelagent.tools;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Date 2025-08-02 10:00
+ * @ClassName: DownloadEngine
+ * @Description: 文件下载引擎：响应体通过 FileChannel 直接写入磁盘，不经过内存缓冲；
+ * 中断的下载用 HTTP Range 续传，支持 Range 的大文件分段并发下载；同一 URL 的并发下载只执行一次；
+ * 下载完成的文件存入内容寻址的 {@link BlobStore}，再次下载相同 URL（未变化）或相同内容时直接复用
+ */
+@Slf4j
+public class DownloadEngine {
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_PARTIAL_CONTENT = 206;
+    private static final int HTTP_NOT_MODIFIED = 304;
+    // 合并等待的请求在下载超时之外多等的时间，覆盖 HEAD 探测等下载前的请求
+    private static final Duration COALESCED_WAIT_SLACK = Duration.ofMinutes(1);
+
+    private final HttpTransport httpTransport;
+    private final BlobStore blobStore;
+    // 未完成的下载：parts/<url 哈希>.part 及其 .json 元信息
+    private final Path partDir;
+    private final Path urlIndexFile;
+    // 单个文件的大小上限
+    private final long maxBytes;
+    // 超过该大小且服务端支持 Range 时分段下载
+    private final long segmentThreshold;
+    private final int segments;
+    // 单次下载的超时
+    private final Duration timeout;
+
+    // URL -> 上次下载的内容哈希与校验信息
+    private final Map<String, UrlRecord> urlIndex = new ConcurrentHashMap<>();
+    // 正在下载的 URL，用于合并并发的相同下载
+    private final Map<String, CompletableFuture<Blob>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder downloads = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder resumed = new LongAdder();
+    private final LongAdder segmented = new LongAdder();
+    private final LongAdder bytesDownloaded = new LongAdder();
+
+    /**
+     * @param directory 保存未完成下载与 URL 索引的目录
+     */
+    public DownloadEngine(HttpTransport httpTransport, BlobStore blobStore, Path directory, long maxBytes,
+                          long segmentThreshold, int segments, Duration timeout) {
+        this.httpTransport = httpTransport;
+        this.blobStore = blobStore;
+        this.partDir = directory.resolve("parts");
+        this.urlIndexFile = directory.resolve("url-index.json");
+        this.maxBytes = maxBytes;
+        this.segmentThreshold = segmentThreshold;
+        this.segments = segments;
+        this.timeout = timeout;
+        FileUtil.mkdir(partDir.toFile());
+        loadUrlIndex();
+    }
+
+    /**
+     * 下载文件，以指定的命名空间和文件名保存到文件存储
+     */
+    public DownloadResult download(String url, String namespace, String fileName) throws IOException {
+        // 先校验文件名，避免下载完成后才发现无法保存
+        BlobStore.key(namespace, fileName);
+        CompletableFuture<Blob> future = new CompletableFuture<>();
+        CompletableFuture<Blob> existing = inFlight.putIfAbsent(url, future);
+        Blob blob;
+        if (existing != null) {
+            coalesced.increment();
+            Blob shared = await(existing, url);
+            // 发起下载的调用建立引用后就会解除固定，这里单独固定；内容已被回收时自行下载
+            blob = blobStore.pin(shared.sha256())
+                    ? new Blob(shared.sha256(), shared.size(), Source.COALESCED)
+                    : fetch(url);
+        } else {
+            try {
+                blob = fetch(url);
+                future.complete(blob);
+            } catch (IOException | RuntimeException e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(url, future);
+            }
+        }
+        try {
+            return new DownloadResult(blobStore.link(namespace, fileName, blob.sha256()), blob.source());
+        } finally {
+            blobStore.unpin(blob.sha256());
+        }
+    }
+
+    /**
+     * 下载统计
+     */
+    public DownloadStats getStats() {
+        return new DownloadStats(downloads.sum(), reused.sum(), coalesced.sum(), resumed.sum(), segmented.sum(),
+                bytesDownloaded.sum());
+    }
+
+    /**
+     * 获取 URL 对应的内容，返回的内容已在文件存储中固定，调用方建立引用后解除固定
+     */
+    private Blob fetch(String url) throws IOException {
+        URI uri = URI.create(url);
+        UrlRecord record = urlIndex.get(url);
+        // 固定上次的内容，条件请求期间不会被 gc 回收
+        boolean cached = record != null && blobStore.pin(record.sha256());
+        boolean reuse = false;
+        try {
+            if (cached && record.etag() == null && record.lastModified() == null) {
+                // 没有校验信息，无法判断是否变化，直接复用
+                reuse = true;
+                reused.increment();
+                return new Blob(record.sha256(), record.size(), Source.REUSED);
+            }
+            Probe probe = probe(uri, cached ? record : null);
+            if (probe != null && probe.notModified()) {
+                reuse = true;
+                reused.increment();
+                return new Blob(record.sha256(), record.size(), Source.REUSED);
+            }
+            if (probe != null && probe.length() > maxBytes) {
+                throw new IOException("文件大小 " + probe.length() + " 字节超过上限 " + maxBytes + " 字节");
+            }
+            downloads.increment();
+            Path part = partDir.resolve(SecureUtil.sha256(url) + ".part");
+            if (probe != null && probe.acceptRanges() && probe.length() >= segmentThreshold && segments > 1) {
+                downloadSegmented(uri, part, probe);
+                segmented.increment();
+                return store(url, part, Source.SEGMENTED, probe.etag(), probe.lastModified());
+            }
+            HttpResponse<Long> response = downloadSingle(uri, part, probe);
+            Source source = response.statusCode() == HTTP_PARTIAL_CONTENT ? Source.RESUMED : Source.DOWNLOADED;
+            return store(url, part, source, response.headers().firstValue("ETag").orElse(null),
+                    response.headers().firstValue("Last-Modified").orElse(null));
+        } finally {
+            if (cached && !reuse) {
+                blobStore.unpin(record.sha256());
+            }
+        }
+    }
+
+    /**
+     * HEAD 请求获取大小、是否支持 Range；带上次的校验信息时可能返回 304。服务端不支持 HEAD 时返回 null
+     */
+    private Probe probe(URI uri, UrlRecord record) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).method("HEAD", HttpRequest.BodyPublishers.noBody());
+        if (record != null) {
+            if (record.etag() != null) {
+                builder.header("If-None-Match", record.etag());
+            }
+            if (record.lastModified() != null) {
+                builder.header("If-Modified-Since", record.lastModified());
+            }
+        }
+        try {
+            HttpResponse<Void> response = httpTransport.send(builder.build(), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() == HTTP_NOT_MODIFIED) {
+                return new Probe(true, -1, false, null, null);
+            }
+            if (response.statusCode() != HTTP_OK) {
+                return null;
+            }
+            long length = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+            boolean acceptRanges = response.headers().firstValue("Accept-Ranges")
+                    .map(value -> value.equalsIgnoreCase("bytes"))
+                    .orElse(false);
+            return new Probe(false, length, acceptRanges && length > 0,
+                    response.headers().firstValue("ETag").orElse(null),
+                    response.headers().firstValue("Last-Modified").orElse(null));
+        } catch (IOException e) {
+            log.debug("HEAD 请求失败，直接下载: {}，原因: {}", uri, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 单连接下载；上次未完成且内容未变化时从断点续传
+     *
+     * @return 响应，206 表示续传
+     */
+    private HttpResponse<Long> downloadSingle(URI uri, Path part, Probe probe) throws IOException {
+        Path metaFile = part.resolveSibling(part.getFileName() + ".json");
+        long offset = 0;
+        String validator = null;
+        if (Files.isRegularFile(part) && Files.isRegularFile(metaFile)) {
+            JSONObject meta = JSONUtil.parseObj(FileUtil.readUtf8String(metaFile.toFile()));
+            String etag = meta.getStr("etag");
+            String lastModified = meta.getStr("lastModified");
+            // 强 ETag 才能用于 If-Range
+            validator = etag != null && !etag.startsWith("W/") ? etag : lastModified;
+            boolean unchanged = probe == null || (etag != null
+                    ? etag.equals(probe.etag())
+                    : lastModified != null && lastModified.equals(probe.lastModified()));
+            if (validator != null && unchanged) {
+                offset = Files.size(part);
+            }
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(timeout).GET();
+        if (offset > 0) {
+            builder.header("Range", "bytes=" + offset + "-").header("If-Range", validator);
+        }
+        long resumeFrom = offset;
+        List<FileChannelSubscriber> subscribers = new CopyOnWriteArrayList<>();
+        HttpResponse<Long> response;
+        try {
+            CompletableFuture<HttpResponse<Long>> future = httpTransport.sendAsync(builder.build(), responseInfo -> {
+                int status = responseInfo.statusCode();
+                if (status == HTTP_PARTIAL_CONTENT && resumeFrom > 0) {
+                    return register(subscribers, new FileChannelSubscriber(part, resumeFrom, maxBytes, false));
+                }
+                if (status == HTTP_OK) {
+                    saveMeta(metaFile, responseInfo.headers().firstValue("ETag").orElse(null),
+                            responseInfo.headers().firstValue("Last-Modified").orElse(null));
+                    return register(subscribers, new FileChannelSubscriber(part, 0, maxBytes, true));
+                }
+                return HttpResponse.BodySubscribers.replacing(-1L);
+            });
+            // 请求的 timeout 只限制等待响应头，响应体的写入同样受下载超时约束
+            response = awaitBody(future, System.nanoTime() + timeout.toNanos(), subscribers, uri);
+        } catch (IOException e) {
+            // 网络中断保留已下载部分用于续传；超过大小上限的内容不再续传
+            if (isSizeLimitExceeded(e)) {
+                Files.deleteIfExists(part);
+                Files.deleteIfExists(metaFile);
+            }
+            throw e;
+        }
+        int status = response.statusCode();
+        boolean resumedDownload = status == HTTP_PARTIAL_CONTENT && resumeFrom > 0;
+        if (status != HTTP_OK && !resumedDownload) {
+            throw new HttpTransport.HttpStatusException(status, uri);
+        }
+        bytesDownloaded.add(response.body());
+        if (resumedDownload) {
+            resumed.increment();
+            log.info("断点续传: {}，从 {} 字节继续", uri, resumeFrom);
+        }
+        Files.deleteIfExists(metaFile);
+        return response;
+    }
+
+    /**
+     * 分段并发下载：每段一个 Range 请求，各自写入文件的对应位置
+     */
+    private void downloadSegmented(URI uri, Path part, Probe probe) throws IOException {
+        long length = probe.length();
+        long segmentSize = (length + segments - 1) / segments;
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            // 预先写入最后一个字节，分配出完整的文件大小
+            channel.write(ByteBuffer.wrap(new byte[1]), length - 1);
+        }
+        List<long[]> ranges = new ArrayList<>();
+        for (long start = 0; start < length; start += segmentSize) {
+            ranges.add(new long[]{start, Math.min(length, start + segmentSize) - 1});
+        }
+        List<FileChannelSubscriber> subscribers = new CopyOnWriteArrayList<>();
+        List<CompletableFuture<HttpResponse<Long>>> futures = new ArrayList<>();
+        for (long[] range : ranges) {
+            futures.add(requestSegment(uri, part, probe, range[0], range[1], subscribers));
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean completed = false;
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                long[] range = ranges.get(i);
+                HttpResponse<Long> response;
+                try {
+                    response = awaitBody(futures.get(i), deadline, subscribers, uri);
+                } catch (HttpTimeoutException | InterruptedIOException e) {
+                    throw e;
+                } catch (IOException e) {
+                    // 失败的分段重试一次
+                    log.warn("分段 {}-{} 下载失败，重试: {}", range[0], range[1], e.getMessage());
+                    response = awaitBody(requestSegment(uri, part, probe, range[0], range[1], subscribers),
+                            deadline, subscribers, uri);
+                }
+                if (response.statusCode() != HTTP_PARTIAL_CONTENT || response.body() != range[1] - range[0] + 1) {
+                    throw new IOException("分段 " + range[0] + "-" + range[1] + " 下载不完整，状态码 " + response.statusCode());
+                }
+                bytesDownloaded.add(response.body());
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                // 中止仍在传输的分段；分段文件无法判断哪些区域已写完，失败时整体丢弃
+                abortAll(subscribers, new IOException("分段下载已取消: " + uri));
+                futures.forEach(future -> future.cancel(true));
+                Files.deleteIfExists(part);
+            }
+        }
+    }
+
+    private CompletableFuture<HttpResponse<Long>> requestSegment(URI uri, Path part, Probe probe, long start, long end,
+                                                                 List<FileChannelSubscriber> subscribers) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(timeout).GET()
+                .header("Range", "bytes=" + start + "-" + end);
+        // 文件在分段之间变化时服务端返回 200 完整内容，按不完整处理
+        String validator = probe.etag() != null && !probe.etag().startsWith("W/") ? probe.etag() : probe.lastModified();
+        if (validator != null) {
+            builder.header("If-Range", validator);
+        }
+        long segmentLength = end - start + 1;
+        return httpTransport.sendAsync(builder.build(), responseInfo -> responseInfo.statusCode() == HTTP_PARTIAL_CONTENT
+                ? register(subscribers, new FileChannelSubscriber(part, start, start + segmentLength, false))
+                : HttpResponse.BodySubscribers.replacing(-1L));
+    }
+
+    /**
+     * 在截止时间前等待响应体写完；超时或中断时中止仍在传输的响应体，已写入的部分保留
+     */
+    private <T> T awaitBody(CompletableFuture<T> future, long deadline, List<FileChannelSubscriber> subscribers,
+                            URI uri) throws IOException {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            HttpTimeoutException timeoutException =
+                    new HttpTimeoutException("下载超时（超过 " + timeout.toSeconds() + " 秒）: " + uri);
+            abortAll(subscribers, timeoutException);
+            future.cancel(true);
+            throw timeoutException;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException("下载被中断: " + uri);
+            abortAll(subscribers, interrupted);
+            future.cancel(true);
+            throw interrupted;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static FileChannelSubscriber register(List<FileChannelSubscriber> subscribers,
+                                                  FileChannelSubscriber subscriber) {
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    private static void abortAll(List<FileChannelSubscriber> subscribers, IOException cause) {
+        subscribers.forEach(subscriber -> subscriber.abort(cause));
+    }
+
+    /**
+     * 存入文件存储并固定（相同内容已存在时不重复保存），记录 URL 的校验信息，下次用条件请求判断是否变化
+     */
+    private Blob store(String url, Path part, Source source, String etag, String lastModified) throws IOException {
+        long size = Files.size(part);
+        String sha256 = blobStore.addPinned(part);
+        urlIndex.put(url, new UrlRecord(sha256, size, etag, lastModified));
+        saveUrlIndex();
+        return new Blob(sha256, size, source);
+    }
+
+    private static void saveMeta(Path metaFile, String etag, String lastModified) {
+        JSONObject meta = JSONUtil.createObj().set("etag", etag).set("lastModified", lastModified);
+        FileUtil.writeUtf8String(meta.toString(), metaFile.toFile());
+    }
+
+    private void loadUrlIndex() {
+        if (!Files.isRegularFile(urlIndexFile)) {
+            return;
+        }
+        try {
+            JSONObject json = JSONUtil.parseObj(FileUtil.readUtf8String(urlIndexFile.toFile()));
+            json.forEach((url, value) -> {
+                JSONObject record = JSONUtil.parseObj(value);
+                urlIndex.put(url, new UrlRecord(record.getStr("sha256"), record.getLong("size", 0L),
+                        record.getStr("etag"), record.getStr("lastModified")));
+            });
+        } catch (Exception e) {
+            log.warn("读取下载索引失败，忽略: {}", urlIndexFile, e);
+        }
+    }
+
+    private synchronized void saveUrlIndex() {
+        try {
+            Path tempFile = urlIndexFile.resolveSibling(urlIndexFile.getFileName() + ".tmp");
+            JSONObject json = JSONUtil.createObj();
+            urlIndex.forEach((url, record) -> json.set(url, JSONUtil.createObj()
+                    .set("sha256", record.sha256())
+                    .set("size", record.size())
+                    .set("etag", record.etag())
+                    .set("lastModified", record.lastModified())));
+            FileUtil.writeUtf8String(json.toString(), tempFile.toFile());
+            Files.move(tempFile, urlIndexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            log.warn("保存下载索引失败: {}", urlIndexFile, e);
+        }
+    }
+
+    private static boolean isSizeLimitExceeded(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SizeLimitExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 等待正在进行的相同下载，最多等待下载超时加上探测请求的余量
+     */
+    private Blob await(CompletableFuture<Blob> future, String url) throws IOException {
+        try {
+            return future.get(timeout.plus(COALESCED_WAIT_SLACK).toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new HttpTimeoutException("等待相同下载超时: " + url);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待下载被中断: " + url);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * 文件来源
+     */
+    public enum Source {
+        // 完整下载
+        DOWNLOADED,
+        // 断点续传
+        RESUMED,
+        // 分段并发下载
+        SEGMENTED,
+        // 内容未变化，复用已下载的文件
+        REUSED,
+        // 合并到正在进行的相同下载
+        COALESCED
+    }
+
+    /**
+     * 下载结果
+     *
+     * @param file   保存的文件
+     * @param source 文件来源
+     */
+    public record DownloadResult(BlobStore.Ref file, Source source) {
+    }
+
+    /**
+     * 下载统计
+     *
+     * @param downloads       发起的下载数
+     * @param reused          复用已下载文件的次数
+     * @param coalesced       合并到正在进行的相同下载的次数
+     * @param resumed         断点续传次数
+     * @param segmented       分段下载次数
+     * @param bytesDownloaded 下载的字节数
+     */
+    public record DownloadStats(long downloads, long reused, long coalesced, long resumed, long segmented,
+                                long bytesDownloaded) {
+    }
+
+    private record Blob(String sha256, long size, Source source) {
+    }
+
+    private record UrlRecord(String sha256, long size, String etag, String lastModified) {
+    }
+
+    private record Probe(boolean notModified, long length, boolean acceptRanges, String etag, String lastModified) {
+    }
+
+    /**
+     * 下载内容超过大小上限
+     */
+    private static final class SizeLimitExceededException extends IOException {
+        private SizeLimitExceededException(long limit) {
+            super("下载内容超过上限 " + limit + " 字节");
+        }
+    }
+
+    /**
+     * 把响应体的 ByteBuffer 直接写入文件的指定位置
+     */
+    private static final class FileChannelSubscriber implements HttpResponse.BodySubscriber<Long> {
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+        private final Path file;
+        private final long start;
+        private final long limit;
+        private final boolean truncate;
+        private volatile FileChannel channel;
+        private volatile Flow.Subscription subscription;
+        private long position;
+
+        /**
+         * @param file     写入的文件
+         * @param start    写入的起始位置
+         * @param limit    写入位置的上限（不含），超出时失败
+         * @param truncate 是否先清空文件
+         */
+        private FileChannelSubscriber(Path file, long start, long limit, boolean truncate) {
+            this.file = file;
+            this.start = start;
+            this.limit = limit;
+            this.truncate = truncate;
+            this.position = start;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (result.isDone()) {
+                // 开始接收前已被中止
+                subscription.cancel();
+                return;
+            }
+            try {
+                channel = truncate
+                        ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+                        : FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                subscription.request(1);
+            } catch (IOException e) {
+                subscription.cancel();
+                result.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            try {
+                for (ByteBuffer buffer : buffers) {
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                }
+                if (position > limit) {
+                    throw new SizeLimitExceededException(limit);
+                }
+                subscription.request(1);
+            } catch (IOException e) {
+                subscription.cancel();
+                close();
+                result.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            close();
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            close();
+            result.complete(position - start);
+        }
+
+        @Override
+        public CompletableFuture<Long> getBody() {
+            return result;
+        }
+
+        /**
+         * 中止下载：取消订阅会关闭底层连接，并释放主机许可
+         */
+        void abort(IOException cause) {
+            if (result.isDone()) {
+                return;
+            }
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+            close();
+            result.completeExceptionally(cause);
+        }
+
+        private void close() {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                log.warn("关闭下载文件失败: {}", file, e);
+            }
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.yhh.travelagent.tools;
 
 import cn.hutool.core.io.FileUtil;
-import com.yhh.travelagent.constants.FileConstant;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Component;
@@ -14,13 +13,21 @@ import org.springframework.stereotype.Component;
 
 public class FileOperationTool {
 
-    private final String FILE_DIR = FileConstant.FILE_SAVE_DIR + "/file";
+    // 文件在文件存储中的命名空间
+    public static final String NAMESPACE = "file";
+
+    private final BlobStore blobStore;
+
+    public FileOperationTool(BlobStore blobStore) {
+        this.blobStore = blobStore;
+    }
 
     @Tool(description = "Read content from a file")
     public String readFile(@ToolParam(description = "Name of the file to read") String fileName) {
-        String filePath = FILE_DIR + "/" + fileName;
         try {
-            return FileUtil.readUtf8String(filePath);
+            return blobStore.get(NAMESPACE, fileName)
+                    .map(ref -> FileUtil.readUtf8String(blobStore.objectPath(ref.sha256()).toFile()))
+                    .orElse("Error reading file: " + fileName + " does not exist");
         } catch (Exception e) {
             return "Error reading file: " + e.getMessage();
         }
@@ -30,15 +37,11 @@ public class FileOperationTool {
     public String writeFile(
             @ToolParam(description = "Name of the file to write") String fileName,
             @ToolParam(description = "Content to write to the file") String content) {
-        String filePath = FILE_DIR + "/" + fileName;
         try {
-            // 创建目录
-            FileUtil.mkdir(FILE_DIR);
-            FileUtil.writeUtf8String(content, filePath);
-            return "File written successfully to: " + filePath;
+            BlobStore.Ref ref = blobStore.writeString(NAMESPACE, fileName, content);
+            return "File written successfully to: " + ref.name();
         } catch (Exception e) {
             return "Error writing to file: " + e.getMessage();
         }
     }
 }
-
@@ -1,17 +1,12 @@
 package com.yhh.travelagent.tools;
 
-import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.lang.UUID;
-import com.yhh.travelagent.constants.FileConstant;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Component;
 
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -26,12 +21,13 @@ public class HtmlGenerationTool {
 
     private static final Logger log = LoggerFactory.getLogger(HtmlGenerationTool.class);
 
-    // HTML文件保存目录
-    private final String HTML_DIR = FileConstant.FILE_SAVE_DIR + "/html";
+    // HTML文件在文件存储中的命名空间
+    public static final String NAMESPACE = "html";
 
-    public HtmlGenerationTool() {
-        // 确保目录存在
-        FileUtil.mkdir(HTML_DIR);
+    private final BlobStore blobStore;
+
+    public HtmlGenerationTool(BlobStore blobStore) {
+        this.blobStore = blobStore;
     }
 
     /**
@@ -53,15 +49,14 @@ public class HtmlGenerationTool {
             // 处理文件名
             String safeFilename = getSafeFilename(filename);
             String htmlFilename = safeFilename + ".html";
-            Path htmlPath = Paths.get(HTML_DIR, htmlFilename);
 
             // 生成完整的HTML内容
             String htmlContent = buildHtmlDocument(title, content);
 
-            // 写入文件
-            FileUtil.writeString(htmlContent, htmlPath.toString(), StandardCharsets.UTF_8);
+            // 写入文件存储
+            BlobStore.Ref htmlFile = blobStore.writeString(NAMESPACE, htmlFilename, htmlContent);
 
-            log.info("HTML文件生成成功: {}", htmlPath);
+            log.info("HTML文件生成成功: {}，内容哈希: {}", htmlFilename, htmlFile.sha256());
 
             // 构建下载链接
             String downloadLink = "/api/files/html/" + htmlFilename;
@@ -98,7 +93,6 @@ public class HtmlGenerationTool {
             // 处理文件名
             String safeFilename = getSafeFilename(filename);
             String htmlFilename = safeFilename + ".html";
-            Path htmlPath = Paths.get(HTML_DIR, htmlFilename);
 
             // 处理内容中的嵌入标记
             String processedContent = processEmbedTags(content, embedUrls);
@@ -106,10 +100,10 @@ public class HtmlGenerationTool {
             // 生成完整的HTML内容
             String htmlContent = buildHtmlWithEmbeddedPages(title, processedContent);
 
-            // 写入文件
-            FileUtil.writeString(htmlContent, htmlPath.toString(), StandardCharsets.UTF_8);
+            // 写入文件存储
+            BlobStore.Ref htmlFile = blobStore.writeString(NAMESPACE, htmlFilename, htmlContent);
 
-            log.info("HTML文件(带内嵌页面)生成成功: {}", htmlPath);
+            log.info("HTML文件(带内嵌页面)生成成功: {}，内容哈希: {}", htmlFilename, htmlFile.sha256());
 
             // 构建下载链接
             String downloadLink = "/api/files/html/" + htmlFilename;
@@ -0,0 +1,427 @@
+package com.yhh.travelagent.tools;
+
+import javax.net.ssl.SSLSession;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * @Date 2025-07-31 9:30
+ * @ClassName: HttpTransport
+ * @Description: 工具共用的 HTTP 客户端：所有工具共享一个 java.net.http.HttpClient，
+ * 同一主机的连接复用（HTTP/2 多路复用、HTTP/1.1 keep-alive 连接池），避免每次调用重新握手 TLS；
+ * 统一连接超时、请求超时，并限制每个主机的并发请求数，支持同步与异步调用
+ */
+public class HttpTransport implements AutoCloseable {
+
+    private static final String DEFAULT_USER_AGENT =
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/126.0 Safari/537.36";
+
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final Duration requestTimeout;
+    private final Duration acquireTimeout;
+    private final int maxRequestsPerHost;
+    private final String userAgent;
+    // 主机 -> 并发许可
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+
+    private HttpTransport(Builder builder) {
+        // 请求在虚拟线程上阻塞等待，不占用平台线程
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.httpClient = HttpClient.newBuilder()
+                .version(builder.http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(builder.connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+        this.requestTimeout = builder.requestTimeout;
+        this.acquireTimeout = builder.acquireTimeout;
+        this.maxRequestsPerHost = builder.maxRequestsPerHost;
+        this.userAgent = builder.userAgent;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 同步发送请求；未设置超时的请求使用默认请求超时
+     */
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) throws IOException {
+        HttpRequest prepared = prepare(request);
+        Semaphore permit = acquire(prepared.uri());
+        requests.increment();
+        try {
+            return httpClient.send(prepared, bodyHandler);
+        } catch (IOException e) {
+            failures.increment();
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failures.increment();
+            throw new InterruptedIOException("请求被中断: " + prepared.uri());
+        } finally {
+            permit.release();
+        }
+    }
+
+    /**
+     * 异步发送请求，响应体读取完成后释放主机许可
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+        HttpRequest prepared = prepare(request);
+        return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return acquire(prepared.uri());
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor)
+                .thenCompose(permit -> {
+                    requests.increment();
+                    return httpClient.sendAsync(prepared, bodyHandler)
+                            .whenComplete((response, e) -> {
+                                permit.release();
+                                if (e != null) {
+                                    failures.increment();
+                                }
+                            });
+                });
+    }
+
+    /**
+     * GET 请求并以字符串返回响应体，非 2xx 状态抛出 IOException
+     *
+     * @param url     地址
+     * @param params  查询参数，可为空
+     * @param headers 请求头，可为空
+     */
+    public String getString(String url, Map<String, ?> params, Map<String, String> headers) throws IOException {
+        HttpResponse<InputStream> response = open(url, params, headers);
+        try (InputStream in = response.body()) {
+            return new String(in.readAllBytes(), charset(response));
+        }
+    }
+
+    /**
+     * GET 请求并返回流式响应体（已解压），主机许可在响应体关闭时释放，调用方必须关闭响应体
+     */
+    public HttpResponse<InputStream> open(String url, Map<String, ?> params, Map<String, String> headers) throws IOException {
+        HttpRequest request = prepare(get(uri(url, params), headers, true));
+        Semaphore permit = acquire(request.uri());
+        requests.increment();
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            permit.release();
+            failures.increment();
+            throw e;
+        } catch (InterruptedException e) {
+            permit.release();
+            Thread.currentThread().interrupt();
+            failures.increment();
+            throw new InterruptedIOException("请求被中断: " + request.uri());
+        }
+        InputStream body = new PermitReleasingInputStream(response.body(), permit);
+        try {
+            checkStatus(response);
+            return new DecodedResponse(response, decode(response, body));
+        } catch (IOException | RuntimeException e) {
+            body.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 请求统计
+     */
+    public TransportStats getStats() {
+        return new TransportStats(requests.sum(), failures.sum(), throttled.sum(), maxRequestsPerHost);
+    }
+
+    @Override
+    public void close() {
+        httpClient.close();
+        executor.shutdown();
+    }
+
+    /**
+     * 拼接查询参数
+     */
+    public static URI uri(String url, Map<String, ?> params) {
+        if (params == null || params.isEmpty()) {
+            return URI.create(url);
+        }
+        StringJoiner query = new StringJoiner("&");
+        params.forEach((name, value) -> query.add(URLEncoder.encode(name, StandardCharsets.UTF_8) + "="
+                + URLEncoder.encode(value == null ? "" : String.valueOf(value), StandardCharsets.UTF_8)));
+        return URI.create(url + (url.contains("?") ? "&" : "?") + query);
+    }
+
+    /**
+     * 从 Content-Type 中取字符集，未声明时返回 null
+     */
+    public static String charsetName(HttpResponse<?> response) {
+        return response.headers().firstValue("Content-Type")
+                .map(contentType -> {
+                    for (String part : contentType.split(";")) {
+                        String trimmed = part.trim();
+                        if (trimmed.regionMatches(true, 0, "charset=", 0, "charset=".length())) {
+                            return trimmed.substring("charset=".length()).replace("\"", "").trim();
+                        }
+                    }
+                    return null;
+                })
+                .filter(Charset::isSupported)
+                .orElse(null);
+    }
+
+    private static Charset charset(HttpResponse<?> response) {
+        String charsetName = charsetName(response);
+        return charsetName == null ? StandardCharsets.UTF_8 : Charset.forName(charsetName);
+    }
+
+    private HttpRequest get(URI uri, Map<String, String> headers, boolean compressed) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).GET();
+        if (compressed) {
+            // HttpClient 不会自动解压，文本请求主动声明 gzip 并在读取时解压
+            builder.header("Accept-Encoding", "gzip");
+        }
+        if (headers != null) {
+            headers.forEach(builder::header);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 补充默认超时与 User-Agent
+     */
+    private HttpRequest prepare(HttpRequest request) {
+        boolean hasTimeout = request.timeout().isPresent();
+        boolean hasUserAgent = request.headers().firstValue("User-Agent").isPresent();
+        if (hasTimeout && hasUserAgent) {
+            return request;
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+        if (!hasTimeout) {
+            builder.timeout(requestTimeout);
+        }
+        if (!hasUserAgent) {
+            builder.header("User-Agent", userAgent);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 获取主机的并发许可，等待超时抛出 IOException
+     */
+    private Semaphore acquire(URI uri) throws IOException {
+        String host = uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+        Semaphore permit = hostPermits.computeIfAbsent(host, key -> new Semaphore(maxRequestsPerHost));
+        if (permit.tryAcquire()) {
+            return permit;
+        }
+        throttled.increment();
+        try {
+            if (permit.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return permit;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待主机并发许可被中断: " + uri.getHost());
+        }
+        throw new IOException("主机 " + uri.getHost() + " 并发请求过多，等待 " + acquireTimeout.toSeconds() + " 秒后仍未获得许可");
+    }
+
+    private static void checkStatus(HttpResponse<?> response) throws HttpStatusException {
+        if (response.statusCode() / 100 != 2) {
+            throw new HttpStatusException(response.statusCode(), response.uri());
+        }
+    }
+
+    private static InputStream decode(HttpResponse<?> response, InputStream body) throws IOException {
+        boolean gzip = response.headers().firstValue("Content-Encoding")
+                .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+                .orElse(false);
+        return gzip ? new GZIPInputStream(body) : body;
+    }
+
+    /**
+     * 非 2xx 响应
+     */
+    public static class HttpStatusException extends IOException {
+        private final int statusCode;
+
+        public HttpStatusException(int statusCode, URI uri) {
+            super("HTTP " + statusCode + ": " + uri);
+            this.statusCode = statusCode;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+    }
+
+    /**
+     * 请求统计
+     *
+     * @param requests           发出的请求数
+     * @param failures           网络失败的请求数
+     * @param throttled          因主机并发已满而等待的请求数
+     * @param maxRequestsPerHost 每个主机的并发上限
+     */
+    public record TransportStats(long requests, long failures, long throttled, int maxRequestsPerHost) {
+    }
+
+    /**
+     * 关闭时释放主机许可的输入流，重复关闭只释放一次
+     */
+    private static final class PermitReleasingInputStream extends FilterInputStream {
+        private final Semaphore permit;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private PermitReleasingInputStream(InputStream in, Semaphore permit) {
+            super(in);
+            this.permit = permit;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    permit.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * 替换响应体（解压、许可释放）后的响应
+     */
+    private record DecodedResponse(HttpResponse<InputStream> response, InputStream body)
+            implements HttpResponse<InputStream> {
+
+        @Override
+        public int statusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public HttpRequest request() {
+            return response.request();
+        }
+
+        @Override
+        public Optional<HttpResponse<InputStream>> previousResponse() {
+            return response.previousResponse();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return response.headers();
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return response.sslSession();
+        }
+
+        @Override
+        public URI uri() {
+            return response.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return response.version();
+        }
+    }
+
+    public static final class Builder {
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        private Duration requestTimeout = Duration.ofSeconds(20);
+        private Duration acquireTimeout = Duration.ofSeconds(30);
+        private int maxRequestsPerHost = 8;
+        private boolean http2 = true;
+        private String userAgent = DEFAULT_USER_AGENT;
+
+        private Builder() {
+        }
+
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * 单个请求从发出到收到响应头的超时
+         */
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        /**
+         * 主机并发已满时等待许可的最长时间
+         */
+        public Builder acquireTimeout(Duration acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+            return this;
+        }
+
+        public Builder maxRequestsPerHost(int maxRequestsPerHost) {
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * 优先使用 HTTP/2，服务端不支持时自动降级为 HTTP/1.1
+         */
+        public Builder http2(boolean http2) {
+            this.http2 = http2;
+            return this;
+        }
+
+        public Builder userAgent(String userAgent) {
+            this.userAgent = userAgent;
+            return this;
+        }
+
+        public HttpTransport build() {
+            if (maxRequestsPerHost <= 0) {
+                throw new IllegalArgumentException("maxRequestsPerHost 必须大于 0");
+            }
+            return new HttpTransport(this);
+        }
+    }
+}
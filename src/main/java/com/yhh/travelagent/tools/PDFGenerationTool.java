@@ -1,16 +1,17 @@
 package com.yhh.travelagent.tools;
 
-import cn.hutool.core.io.FileUtil;
+import cn.hutool.crypto.digest.DigestUtil;
 import com.itextpdf.io.image.ImageDataFactory;
 import com.itextpdf.kernel.font.PdfFont;
 import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfString;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
 import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Image;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.properties.TextAlignment;
-import com.yhh.travelagent.constants.FileConstant;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.tool.annotation.Tool;
@@ -19,6 +20,7 @@ import org.springframework.ai.tool.annotation.ToolParam;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -35,6 +37,15 @@ public class PDFGenerationTool {
     // Markdown图片正则
     private static final Pattern IMAGE_PATTERN = Pattern.compile("!\\[(.*?)\\]\\((.*?)\\)");
 
+    // PDF在文件存储中的命名空间
+    public static final String NAMESPACE = "pdf";
+
+    private final BlobStore blobStore;
+
+    public PDFGenerationTool(BlobStore blobStore) {
+        this.blobStore = blobStore;
+    }
+
     /**
      * 生成PDF文件
      */
@@ -42,17 +53,10 @@ public class PDFGenerationTool {
     public String generatePDF(
             @ToolParam(description = "Name of the file to save the generated PDF") String fileName,
             @ToolParam(description = "Content to be included in the PDF, supports markdown image syntax ![](url) and headers with # symbols") String content) {
-        String fileDir = FileConstant.FILE_SAVE_DIR + "/pdf";
-        String filePath = fileDir + "/" + fileName;
-
         // 确保文件名以.pdf结尾
-        if (!fileName.toLowerCase().endsWith(".pdf")) {
-            filePath += ".pdf";
-        }
+        String pdfFileName = fileName.toLowerCase().endsWith(".pdf") ? fileName : fileName + ".pdf";
 
         try {
-            // 创建目录
-            FileUtil.mkdir(fileDir);
             // 加载字体（提前检查字体可用性）
             PdfFont font;
             boolean chineseFontLoaded = false;
@@ -65,41 +69,52 @@ public class PDFGenerationTool {
                 font = PdfFontFactory.createFont();
             }
 
-            // 创建PDF
-            try (PdfWriter writer = new PdfWriter(filePath);
-                 PdfDocument pdf = new PdfDocument(writer);
-                 Document document = new Document(pdf)) {
-
-                document.setFont(font);
-
-                // 如果内容为空，添加默认内容
-                if (content == null || content.trim().isEmpty()) {
-                    Paragraph emptyWarning = new Paragraph("未提供内容，PDF已创建但内容为空。");
-                    emptyWarning.setFont(font).setFontSize(14);
-                    document.add(emptyWarning);
-                } else {
-                    // 检查中文字体是否正确加载，如果没有加载，给出提示
-                    if (!chineseFontLoaded) {
-                        Paragraph fontWarning = new Paragraph("注意：无法加载中文字体，文档中的中文可能无法正确显示。");
-                        fontWarning.setFont(font).setFontSize(14);
-                        document.add(fontWarning);
-                        document.add(new Paragraph("\n"));
-                    }
+            // 创建PDF，写入文件存储
+            PdfFont pdfFont = font;
+            boolean fontLoaded = chineseFontLoaded;
+            // 文档 ID 由内容决定，并去掉创建/修改时间，相同内容生成相同字节，便于文件存储去重
+            PdfString documentId = new PdfString(DigestUtil.md5(String.valueOf(content).getBytes(StandardCharsets.UTF_8)))
+                    .setHexWriting(true);
+            WriterProperties writerProperties = new WriterProperties()
+                    .setInitialDocumentId(documentId)
+                    .setModifiedDocumentId(documentId);
+            BlobStore.Ref pdfFile = blobStore.write(NAMESPACE, pdfFileName, out -> {
+                try (PdfWriter writer = new PdfWriter(out, writerProperties);
+                     PdfDocument pdf = new PdfDocument(writer);
+                     Document document = new Document(pdf)) {
+
+                    pdf.getDocumentInfo().removeCreationDate();
+                    pdf.getDocumentInfo().setMoreInfo("ModDate", null);
+                    document.setFont(pdfFont);
+
+                    // 如果内容为空，添加默认内容
+                    if (content == null || content.trim().isEmpty()) {
+                        Paragraph emptyWarning = new Paragraph("未提供内容，PDF已创建但内容为空。");
+                        emptyWarning.setFont(pdfFont).setFontSize(14);
+                        document.add(emptyWarning);
+                    } else {
+                        // 检查中文字体是否正确加载，如果没有加载，给出提示
+                        if (!fontLoaded) {
+                            Paragraph fontWarning = new Paragraph("注意：无法加载中文字体，文档中的中文可能无法正确显示。");
+                            fontWarning.setFont(pdfFont).setFontSize(14);
+                            document.add(fontWarning);
+                            document.add(new Paragraph("\n"));
+                        }
 
-                    // 处理内容
-                    processContent(content, document, font);
+                        // 处理内容
+                        processContent(content, document, pdfFont);
+                    }
                 }
-            }
+            });
 
             // 检查生成的PDF文件
-            if (FileUtil.exist(filePath) && FileUtil.size(new java.io.File(filePath)) > 0) {
+            if (pdfFile.size() > 0) {
                 // 创建下载链接
-                String pdfFileName = new java.io.File(filePath).getName();
-                String downloadUrl = "/api/files/pdf/" + pdfFileName;
+                String downloadUrl = "/api/files/pdf/" + pdfFile.name();
 
                 StringBuilder result = new StringBuilder();
                 result.append("PDF生成成功！\n");
-                result.append("- 文件名: ").append(pdfFileName).append("\n");
+                result.append("- 文件名: ").append(pdfFile.name()).append("\n");
                 result.append("- 下载链接: [点击下载PDF](").append(downloadUrl).append(")\n");
 
                 if (!chineseFontLoaded) {
@@ -108,7 +123,7 @@ public class PDFGenerationTool {
 
                 return result.toString();
             } else {
-                return "PDF文件创建失败或为空文件: " + filePath;
+                return "PDF文件创建失败或为空文件: " + pdfFile.name();
             }
 
         } catch (IOException e) {
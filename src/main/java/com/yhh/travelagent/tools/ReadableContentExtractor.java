@@ -0,0 +1,226 @@
+package com.yhh.travelagent.tools;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.Elements;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * @Date 2025-08-01 9:30
+ * @ClassName: ReadableContentExtractor
+ * @Description: 网页正文提取：去掉脚本、样式、导航、页脚、广告等模板内容，找出正文区域，
+ * 转换为紧凑的 Markdown 文本，并按 token 数截断，避免整页 HTML 占满智能体的上下文
+ */
+public class ReadableContentExtractor {
+
+    // 与正文无关的标签
+    private static final String NOISE_TAGS = "script, style, noscript, template, iframe, svg, canvas, form, button, "
+            + "input, select, textarea, nav, aside, [hidden], [aria-hidden=true]";
+    // class / id 命中时视为模板内容
+    private static final Pattern UNLIKELY = Pattern.compile(
+            "comment|sidebar|side-bar|footer|foot|menu|breadcrumb|share|social|advert|\\bads?\\b|banner|popup|modal|"
+                    + "cookie|related|recommend|subscribe|login|copyright|toolbar|pagination|hot-?list", Pattern.CASE_INSENSITIVE);
+    // class / id 命中时即使也命中 UNLIKELY 也保留
+    private static final Pattern LIKELY = Pattern.compile("article|content|main|post|body|text|entry|detail",
+            Pattern.CASE_INSENSITIVE);
+    // 正文候选段落的最少字符数
+    private static final int MIN_PARAGRAPH_LENGTH = 25;
+    // article / main 标签的正文少于该字符数时改用打分选出的区域
+    private static final int MIN_SEMANTIC_CONTENT_LENGTH = 200;
+
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+    /**
+     * 提取正文并转换为 Markdown
+     *
+     * @param document  解析后的网页，会被修改
+     * @param maxTokens 最大 token 数
+     */
+    public String extract(Document document, int maxTokens) {
+        String title = document.title();
+        removeBoilerplate(document);
+        Element root = findContentRoot(document);
+        StringBuilder markdown = new StringBuilder();
+        if (!title.isBlank()) {
+            markdown.append("# ").append(title.trim()).append("\n\n");
+        }
+        appendMarkdown(root, markdown);
+        return truncate(compact(markdown.toString()), maxTokens);
+    }
+
+    /**
+     * 按 token 数截断文本，优先在段落边界截断
+     */
+    public String truncate(String text, int maxTokens) {
+        int totalTokens = tokenCountEstimator.estimate(text);
+        if (totalTokens <= maxTokens) {
+            return text;
+        }
+        StringBuilder result = new StringBuilder();
+        int usedTokens = 0;
+        for (String paragraph : text.split("\n\n")) {
+            int tokens = tokenCountEstimator.estimate(paragraph) + 1;
+            if (usedTokens + tokens > maxTokens) {
+                // 段落放不下时按比例截取一部分，至少保留部分内容
+                int remaining = maxTokens - usedTokens;
+                if (remaining > 20) {
+                    int chars = (int) ((long) paragraph.length() * remaining / tokens);
+                    result.append(paragraph, 0, Math.min(paragraph.length(), chars)).append("…");
+                }
+                break;
+            }
+            result.append(paragraph).append("\n\n");
+            usedTokens += tokens;
+        }
+        return result.toString().trim() + "\n\n[内容已截断，原文约 " + totalTokens + " tokens]";
+    }
+
+    private void removeBoilerplate(Document document) {
+        document.select(NOISE_TAGS).remove();
+        // 页眉页脚只去掉页面级的，保留文章内部的（如文章标题所在的 header）
+        for (Element element : document.select("header, footer")) {
+            if (element.closest("article, main") == null) {
+                element.remove();
+            }
+        }
+        for (Element element : document.body().select("[class], [id]")) {
+            if (element == document.body() || element.closest("article, main") == element) {
+                continue;
+            }
+            String attributes = element.className() + " " + element.id();
+            if (UNLIKELY.matcher(attributes).find() && !LIKELY.matcher(attributes).find()) {
+                element.remove();
+            }
+        }
+    }
+
+    /**
+     * 优先使用语义化的 article / main 标签；否则按段落为父节点打分，选出得分最高的区域
+     */
+    private Element findContentRoot(Document document) {
+        for (Element element : document.select("article, main, [role=main]")) {
+            if (element.text().length() >= MIN_SEMANTIC_CONTENT_LENGTH) {
+                return element;
+            }
+        }
+        Map<Element, Double> scores = new HashMap<>();
+        for (Element paragraph : document.body().select("p, pre, td, blockquote, li")) {
+            String text = paragraph.text();
+            if (text.length() < MIN_PARAGRAPH_LENGTH) {
+                continue;
+            }
+            // 逗号越多、文本越长，越像正文
+            double score = 1 + text.split("[,，、。]").length + Math.min(text.length() / 100.0, 3);
+            Element parent = paragraph.parent();
+            if (parent != null) {
+                scores.merge(parent, score, Double::sum);
+                Element grandparent = parent.parent();
+                if (grandparent != null) {
+                    scores.merge(grandparent, score / 2, Double::sum);
+                }
+            }
+        }
+        Element best = document.body();
+        double bestScore = 0;
+        for (Map.Entry<Element, Double> entry : scores.entrySet()) {
+            // 链接文字占比高的区域（导航、列表页）降权
+            double score = entry.getValue() * (1 - linkDensity(entry.getKey()));
+            if (score > bestScore) {
+                bestScore = score;
+                best = entry.getKey();
+            }
+        }
+        return best;
+    }
+
+    private static double linkDensity(Element element) {
+        int textLength = element.text().length();
+        if (textLength == 0) {
+            return 0;
+        }
+        Elements links = element.select("a");
+        int linkLength = 0;
+        for (Element link : links) {
+            linkLength += link.text().length();
+        }
+        return Math.min(1, (double) linkLength / textLength);
+    }
+
+    private static void appendMarkdown(Node node, StringBuilder out) {
+        if (node instanceof TextNode textNode) {
+            out.append(textNode.text());
+            return;
+        }
+        if (!(node instanceof Element element)) {
+            return;
+        }
+        String tag = element.normalName();
+        switch (tag) {
+            case "h1", "h2", "h3", "h4", "h5", "h6" -> {
+                String text = element.text().trim();
+                if (!text.isEmpty()) {
+                    out.append("\n\n").append("#".repeat(tag.charAt(1) - '0')).append(' ').append(text).append("\n\n");
+                }
+            }
+            case "pre" -> out.append("\n\n```\n").append(element.wholeText().strip()).append("\n```\n\n");
+            case "br" -> out.append('\n');
+            case "li" -> {
+                out.append("\n- ");
+                appendChildren(element, out);
+            }
+            case "tr" -> {
+                out.append("\n|");
+                for (Element cell : element.select("> th, > td")) {
+                    out.append(' ').append(cell.text().replace('|', '/')).append(" |");
+                }
+            }
+            case "img", "video", "audio", "picture" -> {
+            }
+            case "p", "div", "section", "article", "main", "header", "footer", "blockquote", "ul", "ol", "table",
+                 "dl", "dt", "dd", "figure", "figcaption" -> {
+                out.append("\n\n");
+                appendChildren(element, out);
+                out.append("\n\n");
+            }
+            default -> appendChildren(element, out);
+        }
+    }
+
+    private static void appendChildren(Element element, StringBuilder out) {
+        for (Node child : element.childNodes()) {
+            appendMarkdown(child, out);
+        }
+    }
+
+    /**
+     * 合并多余的空白与空行
+     */
+    private static String compact(String markdown) {
+        StringBuilder result = new StringBuilder();
+        boolean inCode = false;
+        int blankLines = 0;
+        for (String line : markdown.split("\n", -1)) {
+            if (line.startsWith("```")) {
+                inCode = !inCode;
+            }
+            String normalized = inCode ? line.stripTrailing() : line.replaceAll("[\\s\\u00A0]+", " ").strip();
+            if (normalized.isEmpty() || normalized.equals("-") || normalized.equals("|")) {
+                blankLines++;
+                continue;
+            }
+            if (!result.isEmpty()) {
+                result.append(blankLines > 0 ? "\n\n" : "\n");
+            }
+            result.append(normalized);
+            blankLines = 0;
+        }
+        return result.toString();
+    }
+}
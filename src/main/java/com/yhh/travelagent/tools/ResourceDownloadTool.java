@@ -1,13 +1,8 @@
 package com.yhh.travelagent.tools;
 
-import cn.hutool.core.io.FileUtil;
-import cn.hutool.http.HttpUtil;
-import com.yhh.travelagent.constants.FileConstant;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 
-import java.io.File;
-
 /**
  * @Date 2025-07-12 17:57
  * @ClassName: ResourceDownloadTool
@@ -15,6 +10,15 @@ import java.io.File;
  */
 public class ResourceDownloadTool {
 
+    // 下载文件在文件存储中的命名空间
+    public static final String NAMESPACE = "download";
+
+    private final DownloadEngine downloadEngine;
+
+    public ResourceDownloadTool(DownloadEngine downloadEngine) {
+        this.downloadEngine = downloadEngine;
+    }
+
     /**
      * 从URL下载资源
      */
@@ -22,17 +26,18 @@ public class ResourceDownloadTool {
     public String downloadResource(
             @ToolParam(description = "URL of the resource to download") String url,
             @ToolParam(description = "Name of the file to save the downloaded resource") String fileName) {
-        // 下载文件保存目录
-        String fileDir = FileConstant.FILE_SAVE_DIR + "/download";
-        String filePath = fileDir + "/" + fileName;
-
         try {
-            FileUtil.mkdir(fileDir); // 确保目录存在
-            HttpUtil.downloadFile(url, new File(filePath));
-            return "Resource downloaded successfully to: " + filePath;
+            DownloadEngine.DownloadResult result = downloadEngine.download(url, NAMESPACE, fileName);
+            BlobStore.Ref file = result.file();
+            String message = "Resource downloaded successfully: " + file.name()
+                    + " (" + file.size() + " bytes, sha256 " + file.sha256() + ")"
+                    + ", link: /api/files/" + NAMESPACE + "/" + file.name();
+            if (result.source() == DownloadEngine.Source.REUSED) {
+                message += ", unchanged since last download, reused the local copy";
+            }
+            return message;
         } catch (Exception e) {
             return "Error downloading resource: " + e.getMessage();
         }
     }
 }
-
@@ -0,0 +1,164 @@
+package com.yhh.travelagent.tools;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Date 2025-07-31 16:00
+ * @ClassName: SearchQuota
+ * @Description: 网页搜索配额：每次智能体运行（或一次对话调用）单独计数，互不影响；
+ * 另有全局的上游请求预算（每分钟），保护搜索 API 额度。计数均为无锁的原子操作
+ * 未绑定运行的调用（如直接调用工具）每次单独计数，只受全局预算限制，不同调用之间互不影响
+ * 用法：try (SearchQuota.RunScope ignored = SearchQuota.beginRun()) { ... 运行期间的工具调用 ... }
+ */
+@Slf4j
+public class SearchQuota {
+
+    private static final long WINDOW_MILLIS = 60_000L;
+
+    // 当前线程所属运行的已用次数；工具在智能体运行的线程上同步执行
+    private static final ThreadLocal<AtomicInteger> CURRENT_RUN = new ThreadLocal<>();
+
+    private final int perRunLimit;
+    private final int globalLimitPerMinute;
+    private final AtomicReference<Window> globalWindow = new AtomicReference<>(new Window(0L, 0));
+
+    private final LongAdder runRejections = new LongAdder();
+    private final LongAdder globalRejections = new LongAdder();
+
+    /**
+     * @param perRunLimit          每次运行允许的搜索次数
+     * @param globalLimitPerMinute 全局每分钟允许的上游请求次数
+     */
+    public SearchQuota(int perRunLimit, int globalLimitPerMinute) {
+        this.perRunLimit = perRunLimit;
+        this.globalLimitPerMinute = globalLimitPerMinute;
+        log.info("初始化搜索配额，每次运行: {} 次，全局每分钟: {} 次", perRunLimit, globalLimitPerMinute);
+    }
+
+    /**
+     * 开始一次运行，当前线程上的搜索从 0 开始计数，关闭后恢复之前的运行
+     */
+    public static RunScope beginRun() {
+        AtomicInteger previous = CURRENT_RUN.get();
+        CURRENT_RUN.set(new AtomicInteger());
+        return new RunScope(previous);
+    }
+
+    /**
+     * 重置当前运行的计数，未绑定运行时无需重置
+     */
+    public static void resetCurrentRun() {
+        AtomicInteger run = CURRENT_RUN.get();
+        if (run != null) {
+            run.set(0);
+        }
+    }
+
+    /**
+     * 占用当前运行的一次搜索
+     *
+     * @return 占用后的剩余次数，已用完返回 -1
+     */
+    public int tryAcquireRun() {
+        AtomicInteger used = currentRun();
+        while (true) {
+            int current = used.get();
+            if (current >= perRunLimit) {
+                runRejections.increment();
+                return -1;
+            }
+            if (used.compareAndSet(current, current + 1)) {
+                return perRunLimit - current - 1;
+            }
+        }
+    }
+
+    public int getPerRunLimit() {
+        return perRunLimit;
+    }
+
+    /**
+     * 占用一次全局上游请求预算（命中缓存的查询不占用）
+     *
+     * @return 是否占用成功
+     */
+    public boolean tryAcquireUpstream() {
+        while (true) {
+            long now = System.currentTimeMillis();
+            Window window = globalWindow.get();
+            Window next;
+            if (now - window.start() >= WINDOW_MILLIS) {
+                next = new Window(now, 1);
+            } else if (window.count() < globalLimitPerMinute) {
+                next = new Window(window.start(), window.count() + 1);
+            } else {
+                globalRejections.increment();
+                return false;
+            }
+            if (globalWindow.compareAndSet(window, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 配额统计
+     */
+    public QuotaStats getStats() {
+        Window window = globalWindow.get();
+        int used = System.currentTimeMillis() - window.start() >= WINDOW_MILLIS ? 0 : window.count();
+        return new QuotaStats(perRunLimit, globalLimitPerMinute, used, runRejections.sum(), globalRejections.sum());
+    }
+
+    /**
+     * 当前运行的计数；未绑定运行时每次调用使用新的计数
+     */
+    private static AtomicInteger currentRun() {
+        AtomicInteger run = CURRENT_RUN.get();
+        if (run == null) {
+            log.debug("搜索调用未绑定运行，本次单独计数");
+            return new AtomicInteger();
+        }
+        return run;
+    }
+
+    private record Window(long start, int count) {
+    }
+
+    /**
+     * 配额统计
+     *
+     * @param perRunLimit          每次运行允许的搜索次数
+     * @param globalLimitPerMinute 全局每分钟允许的上游请求次数
+     * @param globalUsed           当前一分钟内已用的上游请求次数
+     * @param runRejections        因单次运行次数用完被拒绝的搜索数
+     * @param globalRejections     因全局预算用完被拒绝的上游请求数
+     */
+    public record QuotaStats(int perRunLimit, int globalLimitPerMinute, int globalUsed,
+                             long runRejections, long globalRejections) {
+    }
+
+    /**
+     * 一次运行的作用域
+     */
+    public static final class RunScope implements AutoCloseable {
+        private final AtomicInteger previous;
+
+        private RunScope(AtomicInteger previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT_RUN.remove();
+            } else {
+                CURRENT_RUN.set(previous);
+            }
+        }
+    }
+}
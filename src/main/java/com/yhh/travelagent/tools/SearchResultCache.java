@@ -0,0 +1,142 @@
+package com.yhh.travelagent.tools;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Date 2025-07-31 14:00
+ * @ClassName: SearchResultCache
+ * @Description: 搜索结果缓存：按搜索引擎和归一化后的查询词缓存，带过期时间和容量上限（LRU 淘汰）；
+ * 并发的相同查询只发起一次上游请求，其余请求等待并共享结果
+ */
+@Slf4j
+public class SearchResultCache {
+
+    private final Duration ttl;
+    private final Map<String, Entry> entries;
+    // 正在加载的查询，用于合并并发的相同查询
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public SearchResultCache(Duration ttl, int maxEntries) {
+        this.ttl = ttl;
+        // 访问顺序的 LinkedHashMap，超出容量时淘汰最久未使用的条目
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        log.info("初始化搜索结果缓存，过期时间: {}，容量: {}", ttl, maxEntries);
+    }
+
+    /**
+     * 读取缓存，未命中时调用 loader 加载；loader 抛出异常或错误时不缓存，同样抛给合并等待的请求
+     *
+     * @param engine 搜索引擎
+     * @param query  查询词
+     * @param loader 上游查询
+     */
+    public String get(String engine, String query, Callable<String> loader) throws Exception {
+        String key = engine + "\n" + normalize(query);
+        String cached = getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+        try {
+            // 抢到加载权之前，上一次加载可能刚好完成
+            cached = getIfPresent(key);
+            if (cached == null) {
+                misses.increment();
+                cached = loader.call();
+                entries.put(key, new Entry(cached, System.nanoTime() + ttl.toNanos()));
+            } else {
+                hits.increment();
+            }
+            future.complete(cached);
+            return cached;
+        } catch (Throwable e) {
+            // Error 也要完成 future，否则合并等待的请求会一直阻塞
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * 缓存统计
+     */
+    public CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), coalesced.sum(), entries.size());
+    }
+
+    /**
+     * 查询词归一化：全角转半角、合并空白、忽略大小写
+     */
+    static String normalize(String query) {
+        String normalized = Normalizer.normalize(query == null ? "" : query, Normalizer.Form.NFKC);
+        return normalized.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private String getIfPresent(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt() >= 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    private static String await(CompletableFuture<String> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private record Entry(String value, long expiresAt) {
+    }
+
+    /**
+     * 缓存统计
+     *
+     * @param hits      命中次数
+     * @param misses    未命中、请求上游的次数
+     * @param coalesced 合并到正在进行的相同查询的次数
+     * @param size      当前缓存条目数
+     */
+    public record CacheStats(long hits, long misses, long coalesced, int size) {
+    }
+}
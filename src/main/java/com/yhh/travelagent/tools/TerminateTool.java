@@ -17,9 +17,9 @@ public class TerminateTool {
             "When you have finished all the tasks, call this tool to end the work.
             """)
     public String doTerminate() {
-        // 重置WebSearchTool的搜索次数计数器
-        WebSearchTool.resetSearchCallCount();
-        log.info("会话终止，已重置WebSearchTool的搜索次数计数器");
+        // 重置当前运行的搜索次数计数器
+        SearchQuota.resetCurrentRun();
+        log.info("会话终止，已重置当前运行的搜索次数计数器");
         return "任务结束";
     }
 }
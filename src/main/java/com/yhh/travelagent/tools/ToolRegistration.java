@@ -1,5 +1,6 @@
 package com.yhh.travelagent.tools;
 
+import com.yhh.travelagent.constants.FileConstant;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbacks;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,6 +8,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
+import java.time.Duration;
+
 /**
  * @Date 2025-07-12 19:47
  * @ClassName: ToolRegistration
@@ -16,21 +20,130 @@ import org.springframework.context.annotation.Configuration;
 public class ToolRegistration {
     @Value("${search-api.api-key}")
     private String searchApiKey;
+    @Value("${tools.http.connect-timeout:5s}")
+    private Duration connectTimeout;
+    @Value("${tools.http.request-timeout:20s}")
+    private Duration requestTimeout;
+    @Value("${tools.http.max-requests-per-host:8}")
+    private int maxRequestsPerHost;
+    @Value("${tools.http.http2:true}")
+    private boolean http2;
+    @Value("${search-cache.ttl:30m}")
+    private Duration searchCacheTtl;
+    @Value("${search-cache.max-entries:500}")
+    private int searchCacheMaxEntries;
+    @Value("${search-quota.per-run:3}")
+    private int searchQuotaPerRun;
+    @Value("${search-quota.global-per-minute:30}")
+    private int searchQuotaGlobalPerMinute;
+    @Value("${scraping.max-tokens:3000}")
+    private int scrapingMaxTokens;
+    @Value("${scraping.cache-entries:200}")
+    private int scrapingCacheEntries;
+    @Value("${scraping.max-bytes:2097152}")
+    private long scrapingMaxBytes;
+    @Value("${scraping.timeout:30s}")
+    private Duration scrapingTimeout;
+    @Value("${scraping.batch.max-urls:8}")
+    private int crawlMaxUrls;
+    @Value("${scraping.batch.max-per-host:2}")
+    private int crawlMaxPerHost;
+    @Value("${scraping.batch.max-tokens:6000}")
+    private int crawlMaxTokens;
+    @Value("${scraping.batch.timeout:30s}")
+    private Duration crawlTimeout;
+    @Value("${download.max-bytes:209715200}")
+    private long downloadMaxBytes;
+    @Value("${download.segment-threshold:8388608}")
+    private long downloadSegmentThreshold;
+    @Value("${download.segments:4}")
+    private int downloadSegments;
+    @Value("${download.timeout:10m}")
+    private Duration downloadTimeout;
+    @Value("${file-store.gc-grace:10m}")
+    private Duration fileStoreGcGrace;
+    @Value("${file-store.gc-interval:${file-store.gc-grace:10m}}")
+    private Duration fileStoreGcInterval;
+
+    /**
+     * 所有联网工具共用的 HTTP 客户端，复用连接
+     */
+    @Bean(destroyMethod = "close")
+    public HttpTransport toolHttpTransport() {
+        return HttpTransport.builder()
+                .connectTimeout(connectTimeout)
+                .requestTimeout(requestTimeout)
+                .maxRequestsPerHost(maxRequestsPerHost)
+                .http2(http2)
+                .build();
+    }
+
+    /**
+     * 网页搜索结果缓存，多个智能体搜索同一目的地时共享结果
+     */
+    @Bean
+    public SearchResultCache searchResultCache() {
+        return new SearchResultCache(searchCacheTtl, searchCacheMaxEntries);
+    }
+
+    /**
+     * 网页搜索配额：每次运行单独计数，全局限制上游请求速率
+     */
+    @Bean
+    public SearchQuota searchQuota() {
+        return new SearchQuota(searchQuotaPerRun, searchQuotaGlobalPerMinute);
+    }
+
+    /**
+     * 网页抓取：流式解析、限制读取字节数与返回 token 数，按 URL 缓存
+     */
+    @Bean
+    public WebPageFetcher webPageFetcher(HttpTransport toolHttpTransport) {
+        return new WebPageFetcher(toolHttpTransport, scrapingMaxTokens, scrapingMaxBytes, scrapingTimeout,
+                scrapingCacheEntries);
+    }
+
+    /**
+     * 下载与生成文件共用的内容寻址存储；启动时导入旧版按目录保存的文件，并回收无引用的内容，之后定期回收
+     */
+    @Bean(destroyMethod = "close")
+    public BlobStore blobStore() {
+        BlobStore blobStore = new BlobStore(Path.of(FileConstant.FILE_SAVE_DIR, ".blobs"), fileStoreGcGrace);
+        for (String namespace : new String[]{FileOperationTool.NAMESPACE, PDFGenerationTool.NAMESPACE,
+                HtmlGenerationTool.NAMESPACE, ResourceDownloadTool.NAMESPACE}) {
+            blobStore.importDirectory(namespace, Path.of(FileConstant.FILE_SAVE_DIR, namespace));
+        }
+        blobStore.gc();
+        blobStore.scheduleGc(fileStoreGcInterval);
+        return blobStore;
+    }
+
+    /**
+     * 文件下载：直接写入磁盘、断点续传、大文件分段并发下载，按内容哈希去重
+     */
+    @Bean
+    public DownloadEngine downloadEngine(HttpTransport toolHttpTransport, BlobStore blobStore) {
+        return new DownloadEngine(toolHttpTransport, blobStore, Path.of(FileConstant.FILE_SAVE_DIR, ".downloads"),
+                downloadMaxBytes, downloadSegmentThreshold, downloadSegments, downloadTimeout);
+    }
 
     /**
      * 注册所有AI工具
      */
     @Bean
-    public ToolCallback[] allTools() {
+    public ToolCallback[] allTools(HttpTransport toolHttpTransport, SearchResultCache searchResultCache,
+                                   SearchQuota searchQuota, WebPageFetcher webPageFetcher,
+                                   DownloadEngine downloadEngine, BlobStore blobStore) {
         // 实例化所有工具
         return ToolCallbacks.from(
-                new FileOperationTool(),
-                new WebSearchTool(searchApiKey),
-                new WebScrapingTool(),
-                new ResourceDownloadTool(),
+                new FileOperationTool(blobStore),
+                new WebSearchTool(searchApiKey, toolHttpTransport, searchResultCache, searchQuota),
+                new WebScrapingTool(webPageFetcher),
+                new WebCrawlTool(webPageFetcher, crawlMaxUrls, crawlMaxPerHost, crawlMaxTokens, crawlTimeout),
+                new ResourceDownloadTool(downloadEngine),
                 new TerminalOperationTool(),
-                new PDFGenerationTool(),
-                new HtmlGenerationTool(),
+                new PDFGenerationTool(blobStore),
+                new HtmlGenerationTool(blobStore),
 //                new ImageSearchTool(),
                 new DateTimeTool(),
                 new TerminateTool()
@@ -0,0 +1,114 @@
+package com.yhh.travelagent.tools;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * @Date 2025-08-01 16:00
+ * @ClassName: WebCrawlTool
+ * @Description: 批量网页抓取：一次工具调用并发抓取多个网页（虚拟线程），同一主机限制并发，
+ * 整体有截止时间，返回每个网页的正文摘要，省去逐个调用 scrapeWebPage 的多轮模型调用
+ */
+@Slf4j
+public class WebCrawlTool {
+
+    // 每个网页至少分到的 token 数
+    private static final int MIN_PAGE_TOKENS = 300;
+
+    private final WebPageFetcher webPageFetcher;
+    // 单次调用最多抓取的网页数
+    private final int maxUrls;
+    // 单次调用中同一主机的最大并发数
+    private final int maxPerHost;
+    // 单次调用的总 token 数，平均分给每个网页
+    private final int maxTotalTokens;
+    // 单次调用的截止时间
+    private final Duration timeout;
+
+    public WebCrawlTool(WebPageFetcher webPageFetcher, int maxUrls, int maxPerHost, int maxTotalTokens, Duration timeout) {
+        this.webPageFetcher = webPageFetcher;
+        this.maxUrls = maxUrls;
+        this.maxPerHost = maxPerHost;
+        this.maxTotalTokens = maxTotalTokens;
+        this.timeout = timeout;
+    }
+
+    @Tool(description = "Scrape several web pages concurrently in one call and return the readable content of each. "
+            + "Prefer this over calling scrapeWebPage repeatedly, e.g. for the links of search results")
+    public String scrapeWebPages(@ToolParam(description = "URLs of the web pages to scrape") List<String> urls) {
+        List<String> distinctUrls = (urls == null ? List.<String>of() : urls).stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .distinct()
+                .toList();
+        List<String> targets = distinctUrls.stream().limit(maxUrls).toList();
+        if (targets.isEmpty()) {
+            return "Error scraping web pages: 没有提供网址";
+        }
+        int pageTokens = Math.max(MIN_PAGE_TOKENS, maxTotalTokens / targets.size());
+        Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<String>> futures = new ArrayList<>();
+        try {
+            for (String url : targets) {
+                futures.add(executor.submit(() -> fetch(url, pageTokens, hostPermits)));
+            }
+            StringBuilder result = new StringBuilder();
+            int succeeded = 0;
+            for (int i = 0; i < targets.size(); i++) {
+                result.append("## [").append(i + 1).append("] ").append(targets.get(i)).append("\n\n");
+                try {
+                    long remaining = Math.max(0, deadline - System.nanoTime());
+                    result.append(futures.get(i).get(remaining, TimeUnit.NANOSECONDS));
+                    succeeded++;
+                } catch (TimeoutException e) {
+                    result.append("抓取超时（超过 ").append(timeout.toSeconds()).append(" 秒）");
+                } catch (ExecutionException e) {
+                    result.append("抓取失败: ").append(e.getCause().getMessage());
+                }
+                result.append("\n\n");
+            }
+            if (distinctUrls.size() > targets.size()) {
+                result.append("（只抓取了前 ").append(maxUrls).append(" 个网址）\n");
+            }
+            log.info("批量抓取 {} 个网页，成功 {} 个", targets.size(), succeeded);
+            return result.toString().trim();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Error scraping web pages: 抓取被中断";
+        } finally {
+            // 不等待超时的任务，中断后直接返回
+            executor.shutdownNow();
+        }
+    }
+
+    private String fetch(String url, int pageTokens, Map<String, Semaphore> hostPermits) throws Exception {
+        String host = URI.create(url).getHost();
+        Semaphore permit = hostPermits.computeIfAbsent(host == null ? "" : host, key -> new Semaphore(maxPerHost));
+        permit.acquire();
+        try {
+            return webPageFetcher.fetch(url, false, pageTokens);
+        } finally {
+            permit.release();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.yhh.travelagent.tools;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @Date 2025-08-01 14:00
+ * @ClassName: WebPageFetcher
+ * @Description: 网页抓取：边下载边解析，响应头不是网页时直接拒绝，不读取响应体；
+ * 读取的字节数有上限，解析出的正文足够填满 token 上限后提前结束，剩余内容不再下载；
+ * 抓取结果按 URL 缓存，再次抓取时携带 ETag / Last-Modified 条件请求，页面未变化直接返回缓存；
+ * 单次抓取有总超时，响应头到达后服务端迟迟不发完响应体时关闭响应体，不让智能体一直等待
+ */
+public class WebPageFetcher {
+
+    private static final Set<String> HTML_TYPES = Set.of("text/html", "application/xhtml+xml");
+    private static final String TEXT_TYPE = "text/plain";
+    // 在响应体开头查找 meta 声明的字符集
+    private static final int CHARSET_SNIFF_BYTES = 4096;
+    private static final Pattern META_CHARSET = Pattern.compile("<meta[^>]+charset\\s*=\\s*[\"']?([\\w-]+)",
+            Pattern.CASE_INSENSITIVE);
+    // 统计正文长度的段落标签及最少字符数
+    private static final Set<String> PARAGRAPH_TAGS = Set.of("p", "pre", "li", "td", "blockquote");
+    private static final int MIN_PARAGRAPH_LENGTH = 25;
+    // 正文字符数达到 token 上限的多少倍时停止解析（中文约 1 字符 1 token，英文约 4 字符 1 token）
+    private static final int CHARS_PER_TOKEN = 4;
+    // 到期关闭响应体，使阻塞的读取立即失败
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "web-page-fetcher-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final HttpTransport httpTransport;
+    private final ReadableContentExtractor contentExtractor = new ReadableContentExtractor();
+    // 返回内容的最大 token 数
+    private final int maxTokens;
+    // 最多读取的响应体字节数
+    private final long maxBytes;
+    // 单次抓取（含读取响应体）的总超时
+    private final Duration timeout;
+    // URL（含模式）-> 抓取结果
+    private final Map<String, CachedPage> pageCache;
+
+    public WebPageFetcher(HttpTransport httpTransport, int maxTokens, long maxBytes, Duration timeout,
+                          int maxCachedPages) {
+        this.httpTransport = httpTransport;
+        this.maxTokens = maxTokens;
+        this.maxBytes = maxBytes;
+        this.timeout = timeout;
+        // 访问顺序的 LinkedHashMap，超出容量时淘汰最久未使用的页面
+        this.pageCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPage> eldest) {
+                return size() > maxCachedPages;
+            }
+        });
+    }
+
+    /**
+     * 抓取网页
+     *
+     * @param url     地址
+     * @param rawHtml 返回原始 HTML（同样受字节与 token 上限约束），否则返回正文的 Markdown 文本
+     */
+    public String fetch(String url, boolean rawHtml) throws IOException {
+        return fetch(url, rawHtml, maxTokens);
+    }
+
+    /**
+     * 抓取网页，指定返回内容的最大 token 数（批量抓取时每个页面分到的 token 较少）
+     */
+    public String fetch(String url, boolean rawHtml, int maxTokens) throws IOException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        String cacheKey = (rawHtml ? "html:" : "text:") + maxTokens + ":" + url;
+        CachedPage cached = pageCache.get(cacheKey);
+        HttpResponse<InputStream> response;
+        try {
+            response = httpTransport.open(url, null, conditionalHeaders(cached));
+        } catch (HttpTransport.HttpStatusException e) {
+            if (e.getStatusCode() == 304 && cached != null) {
+                return cached.content();
+            }
+            throw e;
+        }
+        // 关闭响应体会取消尚未下载的内容
+        try (LimitedInputStream body = new LimitedInputStream(response.body(), maxBytes)) {
+            AtomicBoolean timedOut = new AtomicBoolean();
+            ScheduledFuture<?> watchdog = WATCHDOG.schedule(() -> {
+                timedOut.set(true);
+                closeQuietly(body);
+            }, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            try {
+                String mimeType = mimeType(response);
+                boolean plainText = TEXT_TYPE.equals(mimeType);
+                if (mimeType != null && !plainText && !HTML_TYPES.contains(mimeType)) {
+                    throw new IOException("不支持的内容类型: " + mimeType + "，只能抓取网页，文件请使用资源下载工具");
+                }
+                BufferedInputStream in = new BufferedInputStream(body, CHARSET_SNIFF_BYTES);
+                Charset charset = detectCharset(response, in);
+                String content;
+                try (Reader reader = new InputStreamReader(in, charset)) {
+                    if (plainText || rawHtml) {
+                        content = contentExtractor.truncate(readAll(reader), maxTokens);
+                    } else {
+                        content = extract(reader, response.uri().toString(), maxTokens);
+                    }
+                }
+                if (body.isTruncated()) {
+                    content += "\n\n[页面超过 " + maxBytes / 1024 + " KB，只读取了前 " + maxBytes / 1024 + " KB]";
+                }
+                String etag = response.headers().firstValue("ETag").orElse(null);
+                String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+                if (etag != null || lastModified != null) {
+                    pageCache.put(cacheKey, new CachedPage(etag, lastModified, content));
+                }
+                return content;
+            } catch (IOException | UncheckedIOException e) {
+                if (timedOut.get()) {
+                    throw new HttpTimeoutException("抓取超时（超过 " + timeout.toSeconds() + " 秒）: " + url);
+                }
+                throw e;
+            } finally {
+                watchdog.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * 边读取边解析，正文足够多时停止读取，用已解析的部分提取正文
+     */
+    private String extract(Reader reader, String baseUri, int maxTokens) throws IOException {
+        long enoughChars = (long) maxTokens * CHARS_PER_TOKEN;
+        try (StreamParser parser = new StreamParser(Parser.htmlParser()).parse(reader, baseUri)) {
+            long paragraphChars = 0;
+            Iterator<Element> elements = parser.iterator();
+            while (elements.hasNext()) {
+                Element element = elements.next();
+                if (PARAGRAPH_TAGS.contains(element.normalName())) {
+                    int length = element.text().length();
+                    if (length >= MIN_PARAGRAPH_LENGTH) {
+                        paragraphChars += length;
+                    }
+                }
+                if (paragraphChars >= enoughChars) {
+                    parser.stop();
+                    break;
+                }
+            }
+            Document document = parser.document();
+            return contentExtractor.extract(document, maxTokens);
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // 关闭只为中止读取，失败无需处理
+        }
+    }
+
+    private static String readAll(Reader reader) throws IOException {
+        StringBuilder text = new StringBuilder();
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            text.append(buffer, 0, read);
+        }
+        return text.toString();
+    }
+
+    private static String mimeType(HttpResponse<?> response) {
+        return response.headers().firstValue("Content-Type")
+                .map(contentType -> contentType.split(";")[0].trim().toLowerCase(Locale.ROOT))
+                .filter(type -> !type.isEmpty())
+                .orElse(null);
+    }
+
+    /**
+     * 字符集：响应头 > BOM > meta 标签 > UTF-8
+     */
+    private static Charset detectCharset(HttpResponse<?> response, BufferedInputStream in) throws IOException {
+        String headerCharset = HttpTransport.charsetName(response);
+        if (headerCharset != null) {
+            return Charset.forName(headerCharset);
+        }
+        in.mark(CHARSET_SNIFF_BYTES);
+        byte[] head = in.readNBytes(CHARSET_SNIFF_BYTES);
+        in.reset();
+        if (head.length >= 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB && (head[2] & 0xFF) == 0xBF) {
+            in.skipNBytes(3);
+            return StandardCharsets.UTF_8;
+        }
+        Matcher matcher = META_CHARSET.matcher(new String(head, StandardCharsets.ISO_8859_1));
+        if (matcher.find() && Charset.isSupported(matcher.group(1))) {
+            return Charset.forName(matcher.group(1));
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private static Map<String, String> conditionalHeaders(CachedPage cached) {
+        if (cached == null) {
+            return null;
+        }
+        Map<String, String> headers = new HashMap<>();
+        if (cached.etag() != null) {
+            headers.put("If-None-Match", cached.etag());
+        }
+        if (cached.lastModified() != null) {
+            headers.put("If-Modified-Since", cached.lastModified());
+        }
+        return headers;
+    }
+
+    /**
+     * 缓存的抓取结果
+     */
+    private record CachedPage(String etag, String lastModified, String content) {
+    }
+
+    /**
+     * 最多读取指定字节数的输入流，超出部分视为结束
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+        private boolean truncated;
+
+        private LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                // 探测是否还有剩余内容，用于提示页面被截断
+                if (!truncated && in.read() != -1) {
+                    truncated = true;
+                }
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        boolean isTruncated() {
+            return truncated;
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package com.yhh.travelagent.tools;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 
@@ -10,18 +8,24 @@ import java.io.IOException;
 /**
  * @Date 2025-07-12 16:09
  * @ClassName: WebScrapingTool
- * @Description:
+ * @Description: 网页抓取，默认只返回正文的 Markdown 文本并限制 token 数
  */
 public class WebScrapingTool {
 
-    @Tool(description = "Scrape the content of a web page")
-    public String scrapeWebPage(@ToolParam(description = "URL of the web page to scrape") String url) {
+    private final WebPageFetcher webPageFetcher;
+
+    public WebScrapingTool(WebPageFetcher webPageFetcher) {
+        this.webPageFetcher = webPageFetcher;
+    }
+
+    @Tool(description = "Scrape the main readable content of a web page as compact markdown text")
+    public String scrapeWebPage(@ToolParam(description = "URL of the web page to scrape") String url,
+                                @ToolParam(description = "Return the raw HTML instead of the readable text, default false",
+                                        required = false) Boolean rawHtml) {
         try {
-            Document doc = Jsoup.connect(url).get();
-            return doc.html();
-        } catch (IOException e) {
+            return webPageFetcher.fetch(url, Boolean.TRUE.equals(rawHtml));
+        } catch (IOException | IllegalArgumentException e) {
             return "Error scraping web page: " + e.getMessage();
         }
     }
 }
-
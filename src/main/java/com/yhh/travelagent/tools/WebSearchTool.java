@@ -1,6 +1,5 @@
 package com.yhh.travelagent.tools;
 
-import cn.hutool.http.HttpUtil;
 import cn.hutool.json.JSONArray;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
@@ -9,6 +8,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,95 +24,98 @@ public class WebSearchTool {
     private static final Logger log = LoggerFactory.getLogger(WebSearchTool.class);
     // SearchAPI搜索接口地址
     private static final String SEARCH_API_URL = "https://www.searchapi.io/api/v1/search";
-    // 搜索调用次数限制
-    private static final int MAX_SEARCH_CALLS = 3;
-
-    // 当前会话中的搜索调用次数
-    private static int searchCallCount = 0;
+    // 搜索引擎
+    private static final String ENGINE = "baidu";
 
     // API密钥
     private final String apiKey;
-
-    public WebSearchTool(String apiKey) {
+    // 共享的 HTTP 客户端
+    private final HttpTransport httpTransport;
+    // 搜索结果缓存
+    private final SearchResultCache searchResultCache;
+    // 搜索配额（每次运行的次数与全局上游预算）
+    private final SearchQuota searchQuota;
+
+    public WebSearchTool(String apiKey, HttpTransport httpTransport, SearchResultCache searchResultCache,
+                         SearchQuota searchQuota) {
         this.apiKey = apiKey;
+        this.httpTransport = httpTransport;
+        this.searchResultCache = searchResultCache;
+        this.searchQuota = searchQuota;
     }
 
     /**
-     * 获取剩余的搜索调用次数
+     * 通过百度搜索查询信息
      */
-    public static int getRemainingSearchCalls() {
-        return Math.max(0, MAX_SEARCH_CALLS - searchCallCount);
-    }
+    @Tool(description = "Search for information from Baidu Search Engine (Limited number of calls per task)")
+    public String searchWeb(@ToolParam(description = "Search query keyword") String query) {
+        // 检查并占用当前运行的调用次数
+        int remaining = searchQuota.tryAcquireRun();
+        if (remaining < 0) {
+            return "搜索次数已达到限制（" + searchQuota.getPerRunLimit() + "次），无法继续使用搜索工具";
+        }
+        log.info("执行搜索查询: '{}' (剩余 {}/{})", query, remaining, searchQuota.getPerRunLimit());
 
-    /**
-     * 重置搜索调用次数计数器
-     */
-    public static void resetSearchCallCount() {
-        searchCallCount = 0;
-        log.info("搜索调用次数计数器已重置");
+        try {
+            // 相同查询命中缓存，或合并到正在进行的相同查询
+            String results = searchResultCache.get(ENGINE, query, () -> fetchResults(query));
+            if (results.isEmpty()) {
+                return "没有找到与 '" + query + "' 相关的搜索结果";
+            }
+            return "搜索 '" + query + "' 结果 (剩余调用次数: " + remaining + "):\n\n" + results;
+        } catch (SearchApiException e) {
+            return "搜索API返回错误: " + e.getMessage();
+        } catch (Exception e) {
+            log.error("搜索Baidu时发生错误", e);
+            return "Error searching Baidu: " + e.getMessage();
+        }
     }
 
     /**
-     * 通过百度搜索查询信息
+     * 请求搜索 API 并格式化结果，没有结果时返回空字符串；API 返回错误时抛出异常，不缓存
      */
-    @Tool(description = "Search for information from Baidu Search Engine (Limited to 3 calls per session)")
-    public String searchWeb(@ToolParam(description = "Search query keyword") String query) {
-        // 检查调用次数限制
-        if (searchCallCount >= MAX_SEARCH_CALLS) {
-            return "搜索次数已达到限制（" + MAX_SEARCH_CALLS + "次），无法继续使用搜索工具";
+    private String fetchResults(String query) throws IOException {
+        // 命中缓存的查询不占用全局预算
+        if (!searchQuota.tryAcquireUpstream()) {
+            throw new SearchApiException("搜索服务繁忙，已达到全局请求上限，请稍后再试");
         }
 
-        // 增加调用计数
-        searchCallCount++;
-        log.info("执行搜索查询: '{}' (调用 {}/{})", query, searchCallCount, MAX_SEARCH_CALLS);
-
         // 构建请求参数
         Map<String, Object> paramMap = new HashMap<>();
         paramMap.put("q", query);
         paramMap.put("api_key", apiKey);
-        paramMap.put("engine", "baidu");
+        paramMap.put("engine", ENGINE);
 
-        try {
-            // 发送搜索请求
-            String response = HttpUtil.get(SEARCH_API_URL, paramMap);
-            log.debug("搜索API响应: {}", response);
-
-            // 解析返回结果
-            JSONObject jsonObject = JSONUtil.parseObj(response);
-
-            // 检查API是否返回错误
-            if (jsonObject.containsKey("error")) {
-                String errorMsg = jsonObject.getStr("error", "Unknown API error");
-                log.warn("搜索API返回错误: {}", errorMsg);
-                return "搜索API返回错误: " + errorMsg;
-            }
+        // 发送搜索请求
+        String response = httpTransport.getString(SEARCH_API_URL, paramMap, null);
+        log.debug("搜索API响应: {}", response);
 
-            // 获取搜索结果，添加空检查
-            if (!jsonObject.containsKey("organic_results") || jsonObject.isNull("organic_results")) {
-                log.warn("搜索结果中没有 organic_results 字段或为空");
-                return "未找到搜索结果";
-            }
+        // 解析返回结果
+        JSONObject jsonObject = JSONUtil.parseObj(response);
 
-            JSONArray organicResults = jsonObject.getJSONArray("organic_results");
-            if (organicResults == null || organicResults.isEmpty()) {
-                log.info("搜索结果为空数组");
-                return "没有找到与 '" + query + "' 相关的搜索结果";
-            }
+        // 检查API是否返回错误
+        if (jsonObject.containsKey("error")) {
+            String errorMsg = jsonObject.getStr("error", "Unknown API error");
+            log.warn("搜索API返回错误: {}", errorMsg);
+            throw new SearchApiException(errorMsg);
+        }
 
-            // 格式化搜索结果为更友好的格式
-            return formatSearchResults(organicResults, query);
-        } catch (Exception e) {
-            log.error("搜索Baidu时发生错误", e);
-            return "Error searching Baidu: " + e.getMessage();
+        // 获取搜索结果，添加空检查
+        JSONArray organicResults = jsonObject.getJSONArray("organic_results");
+        if (organicResults == null || organicResults.isEmpty()) {
+            log.info("搜索 '{}' 没有结果", query);
+            return "";
         }
+
+        // 格式化搜索结果为更友好的格式
+        return formatSearchResults(organicResults);
     }
 
     /**
      * 格式化搜索结果为更友好的输出格式
      */
-    private String formatSearchResults(JSONArray results, String query) {
+    private String formatSearchResults(JSONArray results) {
         StringBuilder sb = new StringBuilder();
-        sb.append("搜索 '").append(query).append("' 结果 (剩余调用次数: ").append(MAX_SEARCH_CALLS - searchCallCount).append("):\n\n");
 
         int count = Math.min(results.size(), 5);
         for (int i = 0; i < count; i++) {
@@ -145,4 +148,13 @@ public class WebSearchTool {
 
         return sb.toString();
     }
+
+    /**
+     * 搜索 API 返回的错误
+     */
+    private static class SearchApiException extends IOException {
+        SearchApiException(String message) {
+            super(message);
+        }
+    }
 }
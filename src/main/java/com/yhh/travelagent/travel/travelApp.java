@@ -3,11 +3,15 @@ package com.yhh.travelagent.travel;
 import com.yhh.travelagent.advisor.MyLoggerAdvisor;
 import com.yhh.travelagent.advisor.ProhibitedWordAdvisor;
 import com.yhh.travelagent.advisor.ReReadingAdvisor;
+import com.yhh.travelagent.advisor.SemanticCacheAdvisor;
+import com.yhh.travelagent.cache.CachingChatModel;
+import com.yhh.travelagent.cache.ChatResponseCache;
 import com.yhh.travelagent.chatmemory.FileBasedChatMemory;
 import com.yhh.travelagent.chatmemory.MySQLChatMemory;
 import com.yhh.travelagent.chatmemory.MybatisPlusChatMemory;
-import com.yhh.travelagent.rag.QueryRewriter;
+import com.yhh.travelagent.rag.BackgroundIndexingVectorStore;
 import com.yhh.travelagent.rag.TravelAppRagCustomAdvisorFactory;
+import com.yhh.travelagent.tools.SearchQuota;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
@@ -20,6 +24,7 @@ import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.memory.InMemoryChatMemory;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.ai.vectorstore.VectorStore;
@@ -43,31 +48,53 @@ public class travelApp {
 
     private final ChatClient chatClient;
 
+    // 结构化报告输出使用带精确匹配缓存的模型
+    private final ChatClient reportChatClient;
+
+    // 语义缓存，相近的问题直接复用历史回答
+    private final SemanticCacheAdvisor semanticCacheAdvisor;
+
     private static final String SYSTEM_PROMPT = "请你作为【旅游规划大师】，以专业且亲和的旅游顾问身份，模拟真实的旅游咨询场景与用户互动。\n" +
             "在沟通中，要通过一系列引导性问题深入了解用户的具体需求 —— 比如出行时间（假期时长、季节偏好）、同行人员（是否有老人 / 小孩、情侣 / 朋友 / 独自出行）、预算范围（经济型 / 舒适型 / 豪华型）、旅行偏好（喜欢自然风光还是城市人文、偏爱小众秘境还是热门景点、是否热衷美食探索 / 户外活动 / 购物娱乐）、旅行节奏（轻松休闲型还是紧凑打卡型、希望深度体验还是浅尝辄止），以及是否有特殊需求（比如饮食忌口、身体状况、对交通 / 住宿的特殊要求、是否想融入当地生活体验等）。\n" +
             "基于这些细节，为用户量身定制全面且实用的旅游规划，包括目的地推荐（附具体推荐理由）、每日行程安排（细化到交通方式、景点玩法、餐饮建议）、住宿选择（结合预算和需求推荐合适类型及区域）、出行注意事项（天气、穿搭、当地习俗等）。\n" +
             "始终以用户需求为核心，通过持续提问精准捕捉潜在诉求（比如是否有必去清单、是否想避开人流高峰等），确保给出的规划方案贴合用户期待，帮用户避开旅行中的常见坑，让每一段行程都更符合其个性化期待，拥有舒适且难忘的旅行体验。";
 
-    public travelApp(ChatModel dashscopeChatModel, MybatisPlusChatMemory chatMemory,MySQLChatMemory jdbcmysqlchatMemory) {
+    public travelApp(ChatModel dashscopeChatModel, EmbeddingModel dashscopeEmbeddingModel, ChatResponseCache chatResponseCache,
+                     MybatisPlusChatMemory chatMemory, MySQLChatMemory jdbcmysqlchatMemory) {
         // 初始化基于文件的对话记忆
 //        String fileDir = System.getProperty("user.dir") + "/chat-memory";
 //        ChatMemory chatMemory = new FileBasedChatMemory(fileDir);
 //        ChatMemory chatMemory = new InMemoryChatMemory();
 //        ChatMemory chatMemory = new MySQLChatMemory(dataSource);
-        chatClient = ChatClient.builder(dashscopeChatModel)
+        semanticCacheAdvisor = new SemanticCacheAdvisor(dashscopeEmbeddingModel);
+        chatClient = buildChatClient(dashscopeChatModel, chatMemory);
+        reportChatClient = buildChatClient(new CachingChatModel(dashscopeChatModel, chatResponseCache), chatMemory);
+    }
+
+    private ChatClient buildChatClient(ChatModel chatModel, ChatMemory chatMemory) {
+        return ChatClient.builder(chatModel)
                 .defaultSystem(SYSTEM_PROMPT)
                 .defaultAdvisors(
                         new MessageChatMemoryAdvisor(chatMemory),
                         // 自定义日志拦截
                         new MyLoggerAdvisor(),
                         // 违禁词检测 - 从文件读取违禁词
-                        new ProhibitedWordAdvisor()
+                        new ProhibitedWordAdvisor(),
+                        // 语义缓存
+                        semanticCacheAdvisor
 //                        // 自定义重读拦截
 //                        new ReReadingAdvisor()
                 )
                 .build();
     }
 
+    /**
+     * 获取语义缓存统计信息（命中率等）
+     */
+    public SemanticCacheAdvisor.CacheStats getSemanticCacheStats() {
+        return semanticCacheAdvisor.getStats();
+    }
+
     public String doChat(String message, String chatId) {
         ChatResponse response = chatClient.prompt().user(message).advisors(spec -> spec.param(CHAT_MEMORY_CONVERSATION_ID_KEY, chatId).param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 10)).call().chatResponse();
         String content = response.getResult().getOutput().getText();
@@ -87,7 +114,7 @@ public class travelApp {
      * @return
      */
     public TravelReport doChatWithReport(String message, String chatId) {
-        TravelReport travelReport = chatClient
+        TravelReport travelReport = reportChatClient
                 .prompt()
                 .system(SYSTEM_PROMPT + "每次对话后都要生成旅游建议，标题为{用户名}的旅游计划报告，内容为建议列表")
                 .user(message)
@@ -108,20 +135,23 @@ public class travelApp {
     @Resource
     private VectorStore pgVectorVectorStore;
     @Resource
-    private QueryRewriter queryRewriter;
-    @Resource
     private Advisor travelAppRagCloudAdvisor;
+    @Resource
+    private Advisor travelAppMultiQueryRagAdvisor;
     public String doChatWithRag(String message, String chatId) {
-        String rewrittenMessage = queryRewriter.doQueryRewrite(message);
+        // 查询重写由多查询检索顾问与原始查询检索并行执行，不再阻塞在检索之前
         ChatResponse chatResponse = chatClient
                 .prompt()
-                .user(rewrittenMessage)
+                .user(message)
                 .advisors(spec -> spec.param(CHAT_MEMORY_CONVERSATION_ID_KEY, chatId)
-                        .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 10))
+                        .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 10)
+                        // 本地知识库或 PgVector 任一仍在后台建索引时，降级回答不写入语义缓存
+                        .param(SemanticCacheAdvisor.SKIP_CACHE_KEY,
+                                !(isReady(travelAppVectorStore) && isReady(pgVectorVectorStore))))
                 // 开启日志，便于观察效果
                 .advisors(new MyLoggerAdvisor())
-                // 应用知识库问答
-                .advisors(new QuestionAnswerAdvisor(travelAppVectorStore))
+                // 多查询并行检索（本地混合检索 + PgVector + 云知识库，原始/重写/扩展查询合并去重后重排）
+                .advisors(travelAppMultiQueryRagAdvisor)
                 // 应用增强检索服务（云知识库服务）
 //                .advisors(travelAppRagCloudAdvisor)
                 // rag应用 （基于 PgVector 向量存储）
@@ -138,6 +168,13 @@ public class travelApp {
         log.info("content: {}", content);
         return content;
     }
+    /**
+     * 判断向量库是否已完成后台索引
+     */
+    private boolean isReady(VectorStore vectorStore) {
+        return !(vectorStore instanceof BackgroundIndexingVectorStore store) || store.isReady();
+    }
+
 //    /**
 //     * 云知识库 rag
 //     */
@@ -173,16 +210,20 @@ public class travelApp {
      * @return
      */
     public String doChatWithTools(String message, String chatId) {
-        ChatResponse chatResponse = chatClient
-                .prompt()
-                .user(message)
-                .advisors(spec -> spec.param(CHAT_MEMORY_CONVERSATION_ID_KEY, chatId)
-                        .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 10))
-                // 开启日志，便于观察效果
-                .advisors(new MyLoggerAdvisor())
-                .tools(allTools)
-                .call()
-                .chatResponse();
+        ChatResponse chatResponse;
+        // 每次调用单独计算搜索配额，工具在当前线程上同步执行
+        try (SearchQuota.RunScope ignored = SearchQuota.beginRun()) {
+            chatResponse = chatClient
+                    .prompt()
+                    .user(message)
+                    .advisors(spec -> spec.param(CHAT_MEMORY_CONVERSATION_ID_KEY, chatId)
+                            .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 10))
+                    // 开启日志，便于观察效果
+                    .advisors(new MyLoggerAdvisor())
+                    .tools(allTools)
+                    .call()
+                    .chatResponse();
+        }
         String content = chatResponse.getResult().getOutput().getText();
         log.info("content: {}", content);
         return content;
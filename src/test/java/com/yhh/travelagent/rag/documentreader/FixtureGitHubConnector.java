@@ -0,0 +1,243 @@
+package com.yhh.travelagent.rag.documentreader;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubBuilder;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.connector.GitHubConnectorRequest;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Date 2025-07-30 11:00
+ * @ClassName: FixtureGitHubConnector
+ * @Description: 把本地目录模拟成 GitHub 仓库的连接器，配合 GitHubBuilder 得到一个离线的 GitHub 客户端，
+ * 用于在没有网络、不消耗请求额度的情况下测试 GitHubDocumentLoader
+ * 支持仓库信息、递归文件树、blob、contents 接口，响应带 ETag 并支持 If-None-Match
+ */
+public class FixtureGitHubConnector implements GitHubConnector {
+
+    private static final String API_URL = "https://api.github.com";
+
+    private final File root;
+    private final String owner;
+    private final String repo;
+    private final String branch;
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    /**
+     * @param root   作为仓库内容的本地目录
+     * @param owner  仓库所有者
+     * @param repo   仓库名称
+     * @param branch 唯一存在的分支，也是默认分支
+     */
+    public FixtureGitHubConnector(File root, String owner, String repo, String branch) {
+        this.root = root;
+        this.owner = owner;
+        this.repo = repo;
+        this.branch = branch;
+    }
+
+    /**
+     * 创建基于本地目录的离线 GitHub 客户端
+     */
+    public static GitHub gitHub(FixtureGitHubConnector connector) throws IOException {
+        return new GitHubBuilder().withEndpoint(API_URL).withConnector(connector).build();
+    }
+
+    /**
+     * 已收到的请求数，用于验证缓存是否生效
+     */
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    public GitHubConnectorResponse send(GitHubConnectorRequest request) throws IOException {
+        requestCount.incrementAndGet();
+        String path = URLDecoder.decode(request.url().getPath(), StandardCharsets.UTF_8);
+        Map<String, String> query = parseQuery(request.url().getQuery());
+        String prefix = "/repos/" + owner + "/" + repo;
+        if (!"GET".equals(request.method()) || !(path.equals(prefix) || path.startsWith(prefix + "/"))) {
+            return notFound(request);
+        }
+        String resource = path.substring(prefix.length());
+        if (resource.isEmpty()) {
+            return json(request, repository());
+        }
+        if (resource.startsWith("/git/trees/")) {
+            String ref = resource.substring("/git/trees/".length());
+            return branch.equals(ref) ? json(request, tree("1".equals(query.get("recursive")))) : notFound(request);
+        }
+        if (resource.startsWith("/git/blobs/")) {
+            File file = findBlob(resource.substring("/git/blobs/".length()));
+            if (file == null) {
+                return notFound(request);
+            }
+            String accept = request.header("Accept");
+            if (accept != null && accept.contains("raw")) {
+                return respond(request, 200, FileUtil.readBytes(file), "application/octet-stream");
+            }
+            return json(request, blob(file));
+        }
+        if (resource.equals("/contents") || resource.startsWith("/contents/")) {
+            String ref = query.getOrDefault("ref", branch);
+            if (!branch.equals(ref)) {
+                return notFound(request);
+            }
+            String relativePath = resource.equals("/contents") ? "" : resource.substring("/contents/".length());
+            File file = relativePath.isEmpty() || relativePath.equals("/") ? root : new File(root, relativePath);
+            if (!file.exists() || !FileUtil.isSub(root, file)) {
+                return notFound(request);
+            }
+            if (file.isDirectory()) {
+                JSONArray listing = new JSONArray();
+                listFiles(file).forEach(child -> listing.add(content(child, false)));
+                return json(request, listing.toString());
+            }
+            return json(request, content(file, true).toString());
+        }
+        return notFound(request);
+    }
+
+    private String repository() {
+        return JSONUtil.createObj()
+                .set("id", 1)
+                .set("name", repo)
+                .set("full_name", owner + "/" + repo)
+                .set("description", "本地仓库: " + root.getAbsolutePath())
+                .set("default_branch", branch)
+                .set("url", API_URL + "/repos/" + owner + "/" + repo)
+                .set("html_url", htmlUrl())
+                .set("git_url", "git://github.com/" + owner + "/" + repo + ".git")
+                .set("owner", JSONUtil.createObj().set("login", owner))
+                .toString();
+    }
+
+    private String tree(boolean recursive) {
+        JSONArray entries = new JSONArray();
+        List<File> files = recursive ? FileUtil.loopFiles(root) : listFiles(root);
+        files.sort(Comparator.comparing(this::relativePath));
+        for (File file : files) {
+            entries.add(JSONUtil.createObj()
+                    .set("path", relativePath(file))
+                    .set("mode", file.isDirectory() ? "040000" : "100644")
+                    .set("type", file.isDirectory() ? "tree" : "blob")
+                    .set("sha", file.isDirectory() ? SecureUtil.sha1(relativePath(file)) : sha(file))
+                    .set("size", file.isDirectory() ? 0 : file.length()));
+        }
+        return JSONUtil.createObj()
+                .set("sha", SecureUtil.sha1(entries.toString()))
+                .set("tree", entries)
+                .set("truncated", false)
+                .toString();
+    }
+
+    private String blob(File file) {
+        byte[] bytes = FileUtil.readBytes(file);
+        return JSONUtil.createObj()
+                .set("sha", sha(file))
+                .set("size", bytes.length)
+                .set("encoding", "base64")
+                .set("content", Base64.getEncoder().encodeToString(bytes))
+                .toString();
+    }
+
+    private JSONObject content(File file, boolean withContent) {
+        String relativePath = relativePath(file);
+        JSONObject json = JSONUtil.createObj()
+                .set("type", file.isDirectory() ? "dir" : "file")
+                .set("name", file.getName())
+                .set("path", relativePath)
+                .set("sha", file.isDirectory() ? SecureUtil.sha1(relativePath) : sha(file))
+                .set("size", file.isDirectory() ? 0 : file.length())
+                .set("url", API_URL + "/repos/" + owner + "/" + repo + "/contents/" + relativePath + "?ref=" + branch)
+                .set("html_url", htmlUrl() + "/blob/" + branch + "/" + relativePath);
+        if (withContent) {
+            json.set("encoding", "base64")
+                    .set("content", Base64.getEncoder().encodeToString(FileUtil.readBytes(file)));
+        }
+        return json;
+    }
+
+    private File findBlob(String sha) {
+        return FileUtil.loopFiles(root).stream()
+                .filter(file -> sha.equals(sha(file)))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private List<File> listFiles(File directory) {
+        File[] children = directory.listFiles();
+        List<File> files = new ArrayList<>(children == null ? List.of() : List.of(children));
+        files.sort(Comparator.comparing(File::getName));
+        return files;
+    }
+
+    private String relativePath(File file) {
+        return FileUtil.subPath(root.getAbsolutePath(), file.getAbsolutePath()).replace('\\', '/');
+    }
+
+    private String htmlUrl() {
+        return "https://github.com/" + owner + "/" + repo;
+    }
+
+    private static String sha(File file) {
+        return GitHubBlobCache.gitBlobSha(FileUtil.readBytes(file));
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int index = pair.indexOf('=');
+            if (index > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, index), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(index + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static GitHubConnectorResponse json(GitHubConnectorRequest request, String body) {
+        return respond(request, 200, body.getBytes(StandardCharsets.UTF_8), "application/json; charset=utf-8");
+    }
+
+    private static GitHubConnectorResponse notFound(GitHubConnectorRequest request) {
+        return respond(request, 404, "{\"message\":\"Not Found\"}".getBytes(StandardCharsets.UTF_8),
+                "application/json; charset=utf-8");
+    }
+
+    /**
+     * 响应带内容 ETag，请求的 If-None-Match 与之相同时返回 304
+     */
+    private static GitHubConnectorResponse respond(GitHubConnectorRequest request, int status, byte[] body, String contentType) {
+        String etag = "\"" + SecureUtil.sha256().digestHex(body) + "\"";
+        Map<String, List<String>> headers = new HashMap<>();
+        headers.put("Content-Type", List.of(contentType));
+        if (status == 200) {
+            headers.put("ETag", List.of(etag));
+            if (etag.equals(request.header("If-None-Match"))) {
+                return new EtagCachingGitHubConnector.BytesResponse(request, 304, headers, new byte[0]);
+            }
+        }
+        return new EtagCachingGitHubConnector.BytesResponse(request, status, headers, body);
+    }
+}
@@ -0,0 +1,175 @@
+package com.yhh.travelagent.rag.documentreader;
+
+import cn.hutool.core.io.FileUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubBuilder;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.springframework.ai.document.Document;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Date 2025-07-30 11:30
+ * @ClassName: GitHubDocumentLoaderTest
+ * @Description: 基于本地目录（src/test/resources/github-fixture）模拟的 GitHub 仓库测试 GitHubDocumentLoader，
+ * 覆盖递归树加载、按 SHA 增量同步、blob 缓存、ETag 条件请求与离线回退、分支回退
+ */
+class GitHubDocumentLoaderTest {
+
+    private static final String OWNER = "eason";
+    private static final String REPO = "travel-docs";
+    private static final String BRANCH = "main";
+
+    @TempDir
+    Path tempDir;
+
+    private File repoRoot;
+    private FixtureGitHubConnector fixture;
+    // 最近一次 etagGitHub 创建的连接器，每次加载使用新的连接器以便单独统计
+    private EtagCachingGitHubConnector lastConnector;
+
+    @BeforeEach
+    void setUp() throws URISyntaxException {
+        // 复制到临时目录，测试中可以修改文件而不影响测试资源
+        repoRoot = tempDir.resolve("repo").toFile();
+        File source = new File(Objects.requireNonNull(getClass().getResource("/github-fixture")).toURI());
+        FileUtil.copyContent(source, repoRoot, true);
+        fixture = new FixtureGitHubConnector(repoRoot, OWNER, REPO, BRANCH);
+    }
+
+    @Test
+    void loadDocumentsFromTree() throws IOException {
+        List<Document> documents = loader(FixtureGitHubConnector.gitHub(fixture), BRANCH, null).loadDocuments("docs");
+
+        assertEquals(List.of("docs/chengdu.md", "docs/guides/packing.md", "docs/hangzhou.md"), paths(documents));
+        Document chengdu = documents.get(0);
+        assertEquals(FileUtil.readUtf8String(new File(repoRoot, "docs/chengdu.md")), chengdu.getText());
+        assertEquals("chengdu.md", chengdu.getMetadata().get("github_file_name"));
+        assertEquals("https://github.com/" + OWNER + "/" + REPO + "/blob/main/docs/chengdu.md",
+                chengdu.getMetadata().get("github_html_url"));
+
+        List<Document> all = loader(FixtureGitHubConnector.gitHub(fixture), BRANCH, null).loadDocuments("/");
+        assertEquals(4, all.size());
+    }
+
+    @Test
+    void syncDocumentsSkipsUnchangedShas() throws IOException {
+        GitHubDocumentLoader loader = loader(FixtureGitHubConnector.gitHub(fixture), BRANCH, null);
+        Map<String, String> knownShas = GitHubDocumentLoader.knownShas(loader.loadDocuments("docs"));
+        assertEquals(3, knownShas.size());
+
+        FileUtil.appendUtf8String("\n第四天：青城山。\n", new File(repoRoot, "docs/chengdu.md"));
+        FileUtil.del(new File(repoRoot, "docs/hangzhou.md"));
+        FileUtil.writeUtf8String("# 西安三日游\n", new File(repoRoot, "docs/xian.md"));
+
+        GitHubDocumentLoader.SyncResult result = loader.syncDocuments("docs", knownShas);
+        assertEquals(List.of("docs/chengdu.md", "docs/xian.md"), paths(result.changedDocuments()));
+        assertEquals(List.of("docs/hangzhou.md"), result.deletedPaths());
+        assertEquals(1, result.unchangedFiles());
+        assertTrue(result.changedDocuments().get(0).getText().contains("青城山"));
+
+        GitHubDocumentLoader.SyncResult unchanged = loader.syncDocuments("docs",
+                GitHubDocumentLoader.knownShas(loader.loadDocuments("docs")));
+        assertTrue(unchanged.changedDocuments().isEmpty());
+        assertTrue(unchanged.deletedPaths().isEmpty());
+        assertEquals(3, unchanged.unchangedFiles());
+    }
+
+    @Test
+    void blobCacheHitsOnSecondLoad() throws IOException {
+        GitHubBlobCache blobCache = new GitHubBlobCache(tempDir.resolve("blobs").toFile());
+
+        List<Document> first = loader(FixtureGitHubConnector.gitHub(fixture), BRANCH, blobCache).loadDocuments("docs");
+        assertEquals(new GitHubBlobCache.CacheStats(0, 3), blobCache.getStats());
+        int firstRequests = fixture.getRequestCount();
+
+        List<Document> second = loader(FixtureGitHubConnector.gitHub(fixture), BRANCH, blobCache).loadDocuments("docs");
+        assertEquals(new GitHubBlobCache.CacheStats(3, 3), blobCache.getStats());
+        // 第二次只请求仓库信息和文件树，不再下载 blob
+        assertEquals(firstRequests - 3, fixture.getRequestCount() - firstRequests);
+        assertEquals(texts(first), texts(second));
+    }
+
+    @Test
+    void etagConnectorReusesNotModifiedAndFallsBackOffline() throws IOException {
+        File cacheDirectory = tempDir.resolve("etag").toFile();
+        AtomicBoolean offline = new AtomicBoolean();
+        GitHubConnector network = request -> {
+            if (offline.get()) {
+                throw new UnknownHostException("api.github.com");
+            }
+            return fixture.send(request);
+        };
+
+        List<Document> first = loader(etagGitHub(network, cacheDirectory), BRANCH, null).loadDocuments("docs");
+        EtagCachingGitHubConnector.ConnectorStats firstStats = lastConnector.getStats();
+        assertTrue(firstStats.fetched() > 0);
+        assertEquals(0, firstStats.notModified());
+
+        List<Document> second = loader(etagGitHub(network, cacheDirectory), BRANCH, null).loadDocuments("docs");
+        EtagCachingGitHubConnector.ConnectorStats secondStats = lastConnector.getStats();
+        assertEquals(0, secondStats.fetched());
+        assertEquals(firstStats.fetched(), secondStats.notModified());
+        assertEquals(texts(first), texts(second));
+
+        offline.set(true);
+        List<Document> third = loader(etagGitHub(network, cacheDirectory), BRANCH, null).loadDocuments("docs");
+        EtagCachingGitHubConnector.ConnectorStats offlineStats = lastConnector.getStats();
+        assertEquals(firstStats.fetched(), offlineStats.offlineHits());
+        assertEquals(texts(first), texts(third));
+    }
+
+    @Test
+    void fallsBackToDefaultBranch() throws IOException {
+        GitHubDocumentLoader loader = loader(FixtureGitHubConnector.gitHub(fixture), "dev", null);
+
+        List<Document> documents = loader.loadDocuments("docs");
+        assertEquals(3, documents.size());
+        assertTrue(documents.stream().allMatch(document ->
+                document.getMetadata().get("github_html_url").toString().contains("/blob/main/")));
+
+        Document readme = loader.loadDocument("README.md");
+        assertEquals(FileUtil.readUtf8String(new File(repoRoot, "README.md")), readme.getText());
+    }
+
+    private GitHub etagGitHub(GitHubConnector network, File cacheDirectory) throws IOException {
+        lastConnector = new EtagCachingGitHubConnector(network, cacheDirectory);
+        return new GitHubBuilder().withEndpoint("https://api.github.com").withConnector(lastConnector).build();
+    }
+
+    private static GitHubDocumentLoader loader(GitHub gitHub, String branch, GitHubBlobCache blobCache) {
+        return GitHubDocumentLoader.builder()
+                .gitHub(gitHub)
+                .owner(OWNER)
+                .repo(REPO)
+                .branch(branch)
+                .parallelism(2)
+                .blobCache(blobCache)
+                .build();
+    }
+
+    private static List<String> paths(List<Document> documents) {
+        return documents.stream()
+                .map(document -> document.getMetadata().get("github_file_path").toString())
+                .sorted()
+                .toList();
+    }
+
+    private static List<String> texts(List<Document> documents) {
+        return documents.stream().map(Document::getText).sorted().toList();
+    }
+}
@@ -0,0 +1,31 @@
+package com.yhh.travelimagesearchmcp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * @Date 2025-07-31 10:00
+ * @ClassName: HttpClientConfig
+ * @Description: 共享的 HTTP 客户端：复用到图片搜索接口的连接（HTTP/2、keep-alive），避免每次搜索重新握手 TLS
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${http.client.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Bean(destroyMethod = "close")
+    public HttpClient httpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+}
@@ -1,7 +1,6 @@
 package com.yhh.travelimagesearchmcp.tools;
 
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.http.HttpUtil;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
 import org.springframework.ai.tool.annotation.Tool;
@@ -9,9 +8,15 @@ import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -28,6 +33,15 @@ public class ImageSearchTool {
     // Pexels 常规搜索接口（请以文档为准）
     private static final String API_URL = "https://api.pexels.com/v1/search";
 
+    @Value("${http.client.request-timeout:15s}")
+    private Duration requestTimeout;
+
+    private final HttpClient httpClient;
+
+    public ImageSearchTool(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
     @Tool(description = "search image from web")
     public String searchImage(@ToolParam(description = "Search query keyword") String query) {
         try {
@@ -43,21 +57,20 @@ public class ImageSearchTool {
      * @param query
      * @return
      */
-    public List<String> searchMediumImages(String query) {
-        // 设置请求头（包含API密钥）
-        Map<String, String> headers = new HashMap<>();
-        headers.put("Authorization", apiKey);
-
-        // 设置请求参数（仅包含query，可根据文档补充page、per_page等参数）
-        Map<String, Object> params = new HashMap<>();
-        params.put("query", query);
+    public List<String> searchMediumImages(String query) throws IOException, InterruptedException {
+        // 设置请求参数（仅包含query，可根据文档补充page、per_page等参数），请求头包含API密钥
+        HttpRequest request = HttpRequest.newBuilder(URI.create(API_URL + "?query=" + URLEncoder.encode(query, StandardCharsets.UTF_8)))
+                .header("Authorization", apiKey)
+                .timeout(requestTimeout)
+                .GET()
+                .build();
 
-        // 发送 GET 请求
-        String response = HttpUtil.createGet(API_URL)
-                .addHeaders(headers)
-                .form(params)
-                .execute()
-                .body();
+        // 发送 GET 请求，复用共享客户端的连接
+        HttpResponse<String> httpResponse = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (httpResponse.statusCode() != 200) {
+            throw new IOException("HTTP " + httpResponse.statusCode() + ": " + httpResponse.body());
+        }
+        String response = httpResponse.body();
 
         // 解析响应JSON（假设响应结构包含"photos"数组，每个元素包含"medium"字段）
         return JSONUtil.parseObj(response)